@@ -0,0 +1,255 @@
+package cc.restfulmc.api.common;
+
+import lombok.NonNull;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * An immutable index of the SHA-1 hashes
+ * of servers that are blocked by Mojang.
+ * <p>
+ * The hashes are stored as raw digests, sorted and packed
+ * into a single array, so the whole blocklist takes a few
+ * hundred kilobytes, and a lookup is a binary search over
+ * it. Hostnames are checked with a {@link Matcher}, which
+ * hashes each candidate into buffers it reuses.
+ * </p>
+ *
+ * @author Braydon
+ * @see <a href="https://wiki.vg/Mojang_API#Blocked_Servers">Mojang API</a>
+ */
+public final class BlockedServerIndex {
+    /**
+     * An index with no blocked servers.
+     */
+    public static final BlockedServerIndex EMPTY = new BlockedServerIndex(new byte[0]);
+
+    private static final int DIGEST_LENGTH = 20; // The length of a SHA-1 digest
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    /**
+     * The sorted digests, packed one after another.
+     */
+    private final byte[] digests;
+
+    private BlockedServerIndex(byte[] digests) {
+        this.digests = digests;
+    }
+
+    /**
+     * Build an index from the given hex encoded hashes.
+     * <p>
+     * Lines that aren't a SHA-1 hash are skipped.
+     * </p>
+     *
+     * @param hashes the hashes to index
+     * @return the index
+     */
+    @NonNull
+    public static BlockedServerIndex of(@NonNull Iterable<String> hashes) {
+        List<byte[]> parsed = new ArrayList<>();
+        for (String hash : hashes) {
+            hash = hash.trim();
+            if (hash.length() != DIGEST_LENGTH * 2) {
+                continue;
+            }
+            try {
+                parsed.add(HEX_FORMAT.parseHex(hash));
+            } catch (IllegalArgumentException ignored) {
+                // Safely ignore, not a hash
+            }
+        }
+        parsed.sort(Arrays::compareUnsigned);
+
+        // Pack the digests, dropping duplicates
+        byte[] digests = new byte[parsed.size() * DIGEST_LENGTH];
+        int count = 0;
+        for (byte[] digest : parsed) {
+            if (count > 0 && Arrays.equals(digests, (count - 1) * DIGEST_LENGTH, count * DIGEST_LENGTH, digest, 0, DIGEST_LENGTH)) {
+                continue;
+            }
+            System.arraycopy(digest, 0, digests, count++ * DIGEST_LENGTH, DIGEST_LENGTH);
+        }
+        return new BlockedServerIndex(Arrays.copyOf(digests, count * DIGEST_LENGTH));
+    }
+
+    /**
+     * Get the amount of blocked hashes in this index.
+     *
+     * @return the amount of hashes
+     */
+    public int size() {
+        return digests.length / DIGEST_LENGTH;
+    }
+
+    /**
+     * Check if the given digest is in this index.
+     *
+     * @param digest the digest to check
+     * @return whether the digest is blocked
+     */
+    private boolean contains(byte[] digest) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int from = mid * DIGEST_LENGTH;
+            int compared = Arrays.compareUnsigned(digests, from, from + DIGEST_LENGTH, digest, 0, DIGEST_LENGTH);
+            if (compared < 0) {
+                low = mid + 1;
+            } else if (compared > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A reusable matcher for checking hostnames against an index.
+     * <p>
+     * Each candidate a hostname is blocked by is written and hashed
+     * in place, so checking a hostname doesn't allocate once the
+     * buffer has grown to fit it. Matchers aren't thread-safe.
+     * </p>
+     */
+    public static final class Matcher {
+        /**
+         * The digest to hash candidates with.
+         */
+        @NonNull private final MessageDigest sha1;
+
+        /**
+         * The buffer candidates are hashed into.
+         */
+        private final byte[] digest = new byte[DIGEST_LENGTH];
+
+        /**
+         * The buffer candidates are written into.
+         */
+        private byte[] buffer = new byte[256];
+
+        public Matcher() {
+            try {
+                sha1 = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        /**
+         * Check if the given hostname is blocked by the given index.
+         * <p>
+         * A hostname is blocked if its hash is listed, or if the hash
+         * of any of its wildcards are. For a domain, these are the
+         * domain and each of its parents prefixed with "*.", and for
+         * an IPv4 address, each of its leading octets suffixed with ".*".
+         * </p>
+         *
+         * @param index    the index to check against
+         * @param hostname the hostname to check
+         * @return whether the hostname is blocked
+         */
+        public boolean isBlocked(@NonNull BlockedServerIndex index, @NonNull String hostname) {
+            int length = hostname.length();
+            while (length > 0 && hostname.charAt(length - 1) == '.') { // Remove trailing dots
+                length--;
+            }
+            if (length == 0 || index.size() == 0) {
+                return false;
+            }
+            if (buffer.length < length + 2) {
+                buffer = new byte[Math.max(buffer.length * 2, length + 2)];
+            }
+            // Write the hostname after room for a "*." prefix, lowercased and encoded as ISO-8859-1
+            int start = 2;
+            for (int i = 0; i < length; i++) {
+                char c = Character.toLowerCase(hostname.charAt(i));
+                buffer[start + i] = (byte) (c <= 0xFF ? c : '?');
+            }
+            int end = start + length;
+            if (matches(index, start, end)) { // Is the hostname itself blocked?
+                return true;
+            }
+            if (isIpv4(start, end)) { // Check "a.b.c.*", then "a.b.*", then "a.*"
+                for (int i = end - 1; i > start; i--) {
+                    if (buffer[i] == '.') {
+                        buffer[i + 1] = '*';
+                        if (matches(index, start, i + 2)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+            // Check "*.a.b.c", then "*.b.c", then "*.c"
+            buffer[0] = '*';
+            buffer[1] = '.';
+            if (matches(index, 0, end)) {
+                return true;
+            }
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == '.') {
+                    buffer[i - 1] = '*'; // The dot is already in place, just before the parent
+                    if (matches(index, i - 1, end)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Check if the candidate within the buffer is blocked.
+         *
+         * @param index the index to check against
+         * @param from  the start of the candidate in the buffer
+         * @param to    the end of the candidate in the buffer
+         * @return whether the candidate is blocked
+         */
+        private boolean matches(@NonNull BlockedServerIndex index, int from, int to) {
+            sha1.update(buffer, from, to - from);
+            try {
+                sha1.digest(digest, 0, DIGEST_LENGTH);
+            } catch (DigestException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return index.contains(digest);
+        }
+
+        /**
+         * Check if the candidate within the
+         * buffer is a dotted IPv4 address.
+         *
+         * @param from the start of the candidate in the buffer
+         * @param to   the end of the candidate in the buffer
+         * @return whether the candidate is an IPv4 address
+         */
+        private boolean isIpv4(int from, int to) {
+            int octets = 0;
+            int octet = -1;
+            for (int i = from; i < to; i++) {
+                byte b = buffer[i];
+                if (b >= '0' && b <= '9') {
+                    octet = (octet == -1 ? 0 : octet * 10) + (b - '0');
+                    if (octet > 255) {
+                        return false;
+                    }
+                } else if (b == '.' && octet != -1) {
+                    octets++;
+                    octet = -1;
+                } else {
+                    return false;
+                }
+            }
+            return octet != -1 && octets == 3;
+        }
+    }
+}
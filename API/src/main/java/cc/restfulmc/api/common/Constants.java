@@ -12,14 +12,16 @@ import java.util.concurrent.Executors;
  * @author Braydon
  */
 public final class Constants {
+    public static final ExecutorService VIRTUAL_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
     public static final Duration HTTP_CLIENT_TIMEOUT = Duration.ofMillis(5000L);
     public static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
             .connectTimeout(HTTP_CLIENT_TIMEOUT)
+            .executor(VIRTUAL_EXECUTOR)
             .build();
     public static final Gson GSON = new GsonBuilder()
             .setDateFormat("MM-dd-yyyy HH:mm:ss")
             .create();
     public static final String REQUEST_START_TIME_ATTRIBUTE = "requestStartTime";
-    public static final ExecutorService VIRTUAL_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
     public static final String CDN_URL = "https://cdn.rainnny.club";
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package cc.restfulmc.api.common;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * A bounded sketch of the most frequent elements
+ * in a stream, using the Space-Saving algorithm.
+ * <p>
+ * At most {@code capacity} elements are tracked. When a new
+ * element arrives while full, it replaces the least frequent
+ * tracked element and inherits its count, so elements that
+ * are frequent are (approximately) never evicted. The
+ * inherited count is remembered as the error of the element,
+ * so callers can ask for counts that are guaranteed.
+ * </p>
+ * <p>
+ * The counters are kept in a min-heap ordered by count, each
+ * knowing its own position in the heap, so the least frequent
+ * element is always at the root, and an offer costs O(log n)
+ * rather than a scan of every tracked element.
+ * </p>
+ *
+ * @param <T> the type of element to track
+ * @author Braydon
+ * @see <a href="https://www.cs.ucsb.edu/sites/default/files/documents/2005-23.pdf">Space-Saving</a>
+ */
+public final class HeavyHitters<T> {
+    /**
+     * The maximum amount of elements to track.
+     */
+    private final int capacity;
+
+    /**
+     * The tracked elements, mapped to their counters.
+     */
+    @NonNull private final Map<T, Counter<T>> counters;
+
+    /**
+     * The counters, as a min-heap ordered by count.
+     */
+    @NonNull private final Counter<T>[] heap;
+
+    /**
+     * The amount of counters in the heap.
+     */
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        counters = new HashMap<>(capacity * 2);
+        heap = new Counter[capacity];
+    }
+
+    /**
+     * Record an occurrence of the given element.
+     *
+     * @param element the element
+     */
+    public synchronized void offer(@NonNull T element) {
+        Counter<T> counter = counters.get(element);
+        if (counter != null) { // Already tracked
+            counter.count++;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) { // There's still room
+            counter = new Counter<>(element, 1L, 0L, size);
+            heap[size++] = counter;
+            counters.put(element, counter);
+            siftUp(counter.index);
+            return;
+        }
+        // Replace the least frequent element, inheriting its count
+        counter = heap[0];
+        counters.remove(counter.element);
+        counter.element = element;
+        counter.error = counter.count;
+        counter.count++;
+        counters.put(element, counter);
+        siftDown(0);
+    }
+
+    /**
+     * Get the most frequent elements, most frequent first.
+     *
+     * @param limit    the maximum amount of elements to get
+     * @param minCount the minimum guaranteed count of an element
+     * @return the most frequent elements
+     */
+    @NonNull
+    public synchronized List<T> getTop(int limit, long minCount) {
+        return counters.values().stream()
+                .filter(counter -> counter.count - counter.error >= minCount)
+                .sorted(Comparator.comparingLong((Counter<T> counter) -> counter.count).reversed())
+                .limit(limit)
+                .map(counter -> counter.element)
+                .toList();
+    }
+
+    /**
+     * Halve the count of every tracked element, dropping
+     * elements that reach zero, so that elements which
+     * are no longer frequent age out over time.
+     */
+    public synchronized void decay() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Counter<T> counter = heap[i];
+            counter.count /= 2;
+            counter.error /= 2;
+            if (counter.count == 0L) {
+                counters.remove(counter.element);
+                continue;
+            }
+            counter.index = kept;
+            heap[kept++] = counter;
+        }
+        Arrays.fill(heap, kept, size, null);
+        size = kept;
+        for (int i = size / 2 - 1; i >= 0; i--) { // Restore the heap order
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Move the counter at the given index up
+     * the heap until its parent is no larger.
+     *
+     * @param index the index of the counter
+     */
+    private void siftUp(int index) {
+        Counter<T> counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    /**
+     * Move the counter at the given index down
+     * the heap until its children are no smaller.
+     *
+     * @param index the index of the counter
+     */
+    private void siftDown(int index) {
+        Counter<T> counter = heap[index];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) { // Use the smaller child
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    /**
+     * Place the given counter at the given index in the heap.
+     *
+     * @param counter the counter
+     * @param index   the index
+     */
+    private void place(@NonNull Counter<T> counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * The counter of a tracked element.
+     *
+     * @param <T> the type of element
+     */
+    @AllArgsConstructor
+    private static final class Counter<T> {
+        /**
+         * The tracked element.
+         */
+        @NonNull private T element;
+
+        /**
+         * The (over-estimated) count of the element.
+         */
+        private long count;
+
+        /**
+         * The most the count can be over-estimated by.
+         */
+        private long error;
+
+        /**
+         * The index of this counter in the heap.
+         */
+        private int index;
+    }
+}
@@ -1,5 +1,6 @@
 package cc.restfulmc.api.common;
 
+import cc.restfulmc.api.common.web.WebClient;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
@@ -10,9 +11,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
 import java.util.Base64;
 
 /**
@@ -92,7 +91,7 @@ public final class ImageUtils {
      */
     @SneakyThrows
     public static byte[] getImage(String url) {
-        HttpResponse<byte[]> response = Constants.HTTP_CLIENT.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        WebClient.Response<byte[]> response = WebClient.send(WebClient.newRequest(url).build(), InputStream::readAllBytes);
         if (response.statusCode() == 200) {
             return response.body();
         }
@@ -0,0 +1,79 @@
+package cc.restfulmc.api.common;
+
+/**
+ * A compact histogram of latencies.
+ * <p>
+ * Latencies are counted in logarithmic buckets (each
+ * 25% wider than the last, from 1ms up to a minute),
+ * so percentiles are accurate to within 25% while
+ * each histogram only takes a few hundred bytes.
+ * Once {@link #MAX_SAMPLES} samples are held, every
+ * bucket is halved, so the histogram follows recent
+ * latencies rather than all time.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class LatencyHistogram {
+    private static final double BUCKET_GROWTH = 1.25D; // The growth factor of each bucket
+    private static final int BUCKETS = 50; // The amount of buckets, 1.25^49 covers ~56s
+    private static final int MAX_SAMPLES = 1024; // The samples held before decaying
+
+    /**
+     * The counts of each bucket.
+     */
+    private final int[] buckets = new int[BUCKETS];
+
+    /**
+     * The total amount of samples held.
+     */
+    private int samples;
+
+    /**
+     * Record the given latency.
+     *
+     * @param millis the latency (in millis)
+     */
+    public synchronized void record(long millis) {
+        if (samples >= MAX_SAMPLES) { // Decay older samples
+            samples = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] /= 2;
+                samples += buckets[i];
+            }
+        }
+        int bucket = millis <= 1L ? 0 : (int) Math.ceil(Math.log(millis) / Math.log(BUCKET_GROWTH));
+        buckets[Math.min(bucket, BUCKETS - 1)]++;
+        samples++;
+    }
+
+    /**
+     * Get the amount of samples held.
+     *
+     * @return the amount of samples
+     */
+    public synchronized int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Get the given percentile of the held latencies.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the upper bound (in millis) of the percentile, -1 if no samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (samples == 0) {
+            return -1L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(samples * percentile));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return (long) Math.ceil(Math.pow(BUCKET_GROWTH, i));
+            }
+        }
+        return (long) Math.ceil(Math.pow(BUCKET_GROWTH, BUCKETS - 1));
+    }
+}
@@ -0,0 +1,136 @@
+package cc.restfulmc.api.common;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A fixed-size history of probe latencies.
+ * <p>
+ * Probes are recorded into primitive ring buffers, so
+ * the history takes the same memory no matter how long
+ * it has been running, and recording a probe never
+ * allocates. Once full, the oldest probe is overwritten.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class LatencyHistory {
+    /**
+     * The unix timestamps of the recorded probes.
+     */
+    private final long[] timestamps;
+
+    /**
+     * The latencies (in millis) of the recorded probes.
+     */
+    private final long[] latencies;
+
+    /**
+     * Whether each of the recorded probes succeeded.
+     */
+    private final boolean[] successes;
+
+    /**
+     * The index the next probe is recorded at.
+     */
+    private int next;
+
+    /**
+     * The amount of probes recorded, up to the capacity.
+     */
+    private int size;
+
+    /**
+     * @param capacity the amount of probes to keep
+     */
+    public LatencyHistory(int capacity) {
+        timestamps = new long[capacity];
+        latencies = new long[capacity];
+        successes = new boolean[capacity];
+    }
+
+    /**
+     * Record a probe.
+     *
+     * @param timestamp the unix timestamp of the probe
+     * @param latency   the latency (in millis) of the probe
+     * @param success   whether the probe succeeded
+     */
+    public synchronized void record(long timestamp, long latency, boolean success) {
+        timestamps[next] = timestamp;
+        latencies[next] = latency;
+        successes[next] = success;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    /**
+     * Take a snapshot of this history.
+     * <p>
+     * Percentiles are calculated from the
+     * successful probes, using the nearest rank.
+     * </p>
+     *
+     * @return the snapshot
+     */
+    @NonNull
+    public synchronized Snapshot snapshot() {
+        List<Sample> samples = new ArrayList<>(size);
+        long[] succeeded = new long[size];
+        int successCount = 0;
+        for (int i = 0; i < size; i++) { // Walk from oldest to newest
+            int index = (next - size + i + timestamps.length) % timestamps.length;
+            samples.add(new Sample(timestamps[index], latencies[index], successes[index]));
+            if (successes[index]) {
+                succeeded[successCount++] = latencies[index];
+            }
+        }
+        Arrays.sort(succeeded, 0, successCount);
+        return new Snapshot(
+                percentile(succeeded, successCount, 0.50D),
+                percentile(succeeded, successCount, 0.95D),
+                percentile(succeeded, successCount, 0.99D),
+                size == 0 ? 0D : (double) successCount / size,
+                samples
+        );
+    }
+
+    /**
+     * Get the given percentile of the sorted latencies.
+     *
+     * @param sorted     the sorted latencies
+     * @param count      the amount of latencies
+     * @param percentile the percentile to get, between 0 and 1
+     * @return the percentile, -1 if there are no latencies
+     */
+    private static long percentile(long[] sorted, int count, double percentile) {
+        if (count == 0) {
+            return -1L;
+        }
+        int rank = (int) Math.ceil(percentile * count);
+        return sorted[Math.clamp(rank - 1, 0, count - 1)];
+    }
+
+    /**
+     * A snapshot of a latency history.
+     *
+     * @param p50          the median latency (in millis), -1 if none
+     * @param p95          the 95th percentile latency (in millis), -1 if none
+     * @param p99          the 99th percentile latency (in millis), -1 if none
+     * @param availability the ratio of probes that succeeded
+     * @param samples      the recorded probes, oldest first
+     */
+    public record Snapshot(long p50, long p95, long p99, double availability, @NonNull List<Sample> samples) { }
+
+    /**
+     * A recorded probe.
+     *
+     * @param timestamp the unix timestamp of the probe
+     * @param latency   the latency (in millis) of the probe
+     * @param success   whether the probe succeeded
+     */
+    public record Sample(long timestamp, long latency, boolean success) { }
+}
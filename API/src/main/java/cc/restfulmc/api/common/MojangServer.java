@@ -1,13 +1,14 @@
 package cc.restfulmc.api.common;
 
+import cc.restfulmc.api.common.web.WebClient;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.ToString;
 
-import java.net.URI;
+import java.io.OutputStream;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 
 /**
  * Represents a service provided by Mojang.
@@ -16,16 +17,16 @@ import java.net.http.HttpResponse;
  */
 @AllArgsConstructor @Getter @ToString
 public enum MojangServer {
-    SESSION("Session Server", "https://sessionserver.mojang.com"),
-    API("Mojang API", "https://api.mojang.com"),
-    TEXTURES("Textures Server", "https://textures.minecraft.net"),
-    ASSETS("Assets Server", "https://assets.mojang.com"),
-    LIBRARIES("Libraries Server", "https://libraries.minecraft.net"),
-    SERVICES("Minecraft Services", "https://api.minecraftservices.com"),
-    MICROSOFT_LOGIN("Microsoft Login", "https://login.live.com"),
-    XBOX_LIVE_AUTH("Xbox Live Auth", "https://user.auth.xboxlive.com"),
-    XBOX_LIVE_XSTS("Xbox Live XSTS", "https://xsts.auth.xboxlive.com"),
-    REALMS("Minecraft Realms", "https://pc.realms.minecraft.net");
+    SESSION("Session Server", "https://sessionserver.mojang.com", 200),
+    API("Mojang API", "https://api.mojang.com", 60),
+    TEXTURES("Textures Server", "https://textures.minecraft.net", 600),
+    ASSETS("Assets Server", "https://assets.mojang.com", 600),
+    LIBRARIES("Libraries Server", "https://libraries.minecraft.net", 600),
+    SERVICES("Minecraft Services", "https://api.minecraftservices.com", 60),
+    MICROSOFT_LOGIN("Microsoft Login", "https://login.live.com", 60),
+    XBOX_LIVE_AUTH("Xbox Live Auth", "https://user.auth.xboxlive.com", 60),
+    XBOX_LIVE_XSTS("Xbox Live XSTS", "https://xsts.auth.xboxlive.com", 60),
+    REALMS("Minecraft Realms", "https://pc.realms.minecraft.net", 60);
 
     /**
      * The name of this server.
@@ -34,8 +35,21 @@ public enum MojangServer {
 
     /**
      * The endpoint of this service.
+     * <p>
+     * This can be overridden through the config,
+     * e.g. to point at a stand-in server.
+     * </p>
      */
-    @NonNull private final String endpoint;
+    @Setter @NonNull private volatile String endpoint;
+
+    /**
+     * The amount of requests per minute this
+     * service allows before rate limiting us.
+     * <p>
+     * This can be overridden through the config.
+     * </p>
+     */
+    @Setter private volatile int requestsPerMinute;
 
     /**
      * Ping this service and get the status of it.
@@ -44,28 +58,47 @@ public enum MojangServer {
      */
     @NonNull
     public Status getStatus() {
+        return probe().status();
+    }
+
+    /**
+     * Ping this service, and get the status
+     * of it and the time it took to answer.
+     *
+     * @return the probe result
+     */
+    @NonNull
+    public Probe probe() {
+        long before = System.currentTimeMillis();
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
+            HttpRequest request = WebClient.newRequest(endpoint)
                     .timeout(Constants.HTTP_CLIENT_TIMEOUT)
                     .GET()
                     .build();
-            long before = System.currentTimeMillis();
-            Constants.HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding());
+            WebClient.send(request, body -> body.transferTo(OutputStream.nullOutputStream()));
+            long latency = System.currentTimeMillis() - before;
 
             // The time it took to reach the host is 75% of
             // the timeout, consider it to be degraded.
-            if ((System.currentTimeMillis() - before) > Constants.HTTP_CLIENT_TIMEOUT.toMillis() * 0.75D) {
-                return Status.DEGRADED;
+            if (latency > Constants.HTTP_CLIENT_TIMEOUT.toMillis() * 0.75D) {
+                return new Probe(Status.DEGRADED, latency);
             }
-            return Status.ONLINE;
+            return new Probe(Status.ONLINE, latency);
         } catch (Exception ignored) {
             // We can safely ignore any errors, we're simply checking
             // if the host is reachable, if it's not, it's offline.
         }
-        return Status.OFFLINE;
+        return new Probe(Status.OFFLINE, System.currentTimeMillis() - before);
     }
 
+    /**
+     * The result of pinging a service.
+     *
+     * @param status  the status of the service
+     * @param latency the time (in millis) the service took to answer, or to fail
+     */
+    public record Probe(@NonNull Status status, long latency) { }
+
     /**
      * The status of a service.
      */
@@ -0,0 +1,224 @@
+package cc.restfulmc.api.common;
+
+import com.google.common.net.InetAddresses;
+import lombok.NonNull;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cache of values that are shared by every
+ * address within a network, keyed by the network.
+ * <p>
+ * Entries are stored in fixed size tables indexed by the
+ * network prefix, one for IPv4 and one for IPv6, and a new
+ * entry simply replaces whatever was in its slot. An address
+ * is looked up by masking it with each prefix length that has
+ * been stored, so a lookup is a handful of array reads, and
+ * never allocates for IPv4 addresses.
+ * </p>
+ * <p>
+ * The networks stored must not overlap, which is the
+ * case for networks returned by a MaxMind database.
+ * IPv6 networks longer than /64 aren't cached.
+ * </p>
+ *
+ * @param <V> the type of value to cache
+ * @author Braydon
+ */
+public final class NetworkCache<V> {
+    private static final int MAX_IPV6_PREFIX = 64; // The longest IPv6 prefix that fits in the key
+
+    /**
+     * The cached IPv4 networks.
+     */
+    @NonNull private final AtomicReferenceArray<Entry<V>> ipv4;
+
+    /**
+     * The cached IPv6 networks.
+     */
+    @NonNull private final AtomicReferenceArray<Entry<V>> ipv6;
+
+    /**
+     * The prefix lengths of the cached IPv4 networks, bit n being /n.
+     */
+    private volatile long ipv4Prefixes;
+
+    /**
+     * The prefix lengths of the cached IPv6 networks, bit n being /(n + 1).
+     */
+    private volatile long ipv6Prefixes;
+
+    /**
+     * @param capacity the amount of networks to cache per address family, rounded up to a power of two
+     */
+    public NetworkCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        ipv4 = new AtomicReferenceArray<>(size);
+        ipv6 = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Get the value cached for the network the given ip belongs to.
+     *
+     * @param ip the ip to lookup
+     * @return the cached value, null if none
+     */
+    public V get(@NonNull String ip) {
+        long ipv4Address = parseIpv4(ip);
+        if (ipv4Address != -1L) {
+            return get(ipv4, ipv4Prefixes, 0, ipv4Address, 32);
+        }
+        InetAddress address = InetAddresses.forString(ip);
+        return address instanceof Inet6Address ? get(ipv6, ipv6Prefixes, 1, getUpperBits(address), 64) : null;
+    }
+
+    /**
+     * Cache a value for the network the given ip belongs to.
+     *
+     * @param ip           the ip within the network
+     * @param prefixLength the prefix length of the network
+     * @param value        the value to cache
+     */
+    public void put(@NonNull String ip, int prefixLength, @NonNull V value) {
+        long ipv4Address = parseIpv4(ip);
+        if (ipv4Address != -1L) {
+            if (prefixLength < 0 || prefixLength > 32) {
+                return;
+            }
+            long network = ipv4Address & mask(prefixLength, 32);
+            ipv4.set(slot(network, prefixLength, ipv4.length()), new Entry<>(network, prefixLength, value));
+            synchronized (this) {
+                ipv4Prefixes |= 1L << prefixLength;
+            }
+            return;
+        }
+        InetAddress address = InetAddresses.forString(ip);
+        if (!(address instanceof Inet6Address) || prefixLength < 1 || prefixLength > MAX_IPV6_PREFIX) {
+            return;
+        }
+        long network = getUpperBits(address) & mask(prefixLength, 64);
+        ipv6.set(slot(network, prefixLength, ipv6.length()), new Entry<>(network, prefixLength, value));
+        synchronized (this) {
+            ipv6Prefixes |= 1L << (prefixLength - 1);
+        }
+    }
+
+    /**
+     * Remove every cached network.
+     */
+    public synchronized void clear() {
+        ipv4Prefixes = 0L;
+        ipv6Prefixes = 0L;
+        for (int i = 0; i < ipv4.length(); i++) {
+            ipv4.set(i, null);
+            ipv6.set(i, null);
+        }
+    }
+
+    /**
+     * Lookup the value cached for the given address.
+     *
+     * @param table    the table to lookup in
+     * @param prefixes the prefix lengths stored in the table
+     * @param offset   the prefix length of the first bit in the prefix lengths
+     * @param address  the address, as the upper bits of a long
+     * @param bits     the amount of bits in the address
+     * @return the cached value, null if none
+     */
+    private static <V> V get(@NonNull AtomicReferenceArray<Entry<V>> table, long prefixes, int offset, long address, int bits) {
+        for (long remaining = prefixes; remaining != 0L; remaining &= remaining - 1L) { // Try each stored prefix length
+            int prefixLength = Long.numberOfTrailingZeros(remaining) + offset;
+            long network = address & mask(prefixLength, bits);
+            Entry<V> entry = table.get(slot(network, prefixLength, table.length()));
+            if (entry != null && entry.network == network && entry.prefixLength == prefixLength) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse the given ip as an IPv4 address.
+     *
+     * @param ip the ip to parse
+     * @return the address as an unsigned int, -1 if not an IPv4 address
+     */
+    private static long parseIpv4(@NonNull String ip) {
+        long address = 0L;
+        int octets = 0;
+        int octet = -1;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet == -1 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1L;
+                }
+            } else if (c == '.' && octet != -1 && octets < 3) {
+                address = (address << 8) | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return -1L;
+            }
+        }
+        if (octet == -1 || octets != 3) {
+            return -1L;
+        }
+        return (address << 8) | octet;
+    }
+
+    /**
+     * Get the upper 64 bits of the given IPv6 address.
+     *
+     * @param address the address
+     * @return the upper bits
+     */
+    private static long getUpperBits(@NonNull InetAddress address) {
+        byte[] bytes = address.getAddress();
+        long upper = 0L;
+        for (int i = 0; i < 8; i++) {
+            upper = (upper << 8) | (bytes[i] & 0xFFL);
+        }
+        return upper;
+    }
+
+    /**
+     * Get the mask for a prefix of the given length.
+     *
+     * @param prefixLength the prefix length
+     * @param bits         the amount of bits in the address
+     * @return the mask
+     */
+    private static long mask(int prefixLength, int bits) {
+        if (prefixLength == 0) {
+            return 0L;
+        }
+        long ones = bits == 64 ? -1L : (1L << bits) - 1L;
+        return ones & ~((1L << (bits - prefixLength)) - 1L);
+    }
+
+    /**
+     * Get the slot of a network within a table.
+     *
+     * @param network      the network
+     * @param prefixLength the prefix length of the network
+     * @param size         the size of the table
+     * @return the slot
+     */
+    private static int slot(long network, int prefixLength, int size) {
+        long hash = (network ^ ((long) prefixLength << 57)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 40) & (size - 1);
+    }
+
+    /**
+     * A cached network.
+     *
+     * @param network      the network address
+     * @param prefixLength the prefix length of the network
+     * @param value        the cached value
+     */
+    private record Entry<V>(long network, int prefixLength, @NonNull V value) { }
+}
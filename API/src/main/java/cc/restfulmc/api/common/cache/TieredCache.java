@@ -0,0 +1,275 @@
+package cc.restfulmc.api.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A two tier cache, with a bounded in-process
+ * tier (L1) in front of a Redis repository (L2).
+ * <p>
+ * Reads check L1 first, and fill it from L2. L1 is a W-TinyLFU
+ * cache (Caffeine) bounded by weight, so a new element only
+ * displaces the element that would be evicted for it if it's
+ * been asked for more often, and one-off lookups don't push
+ * out popular elements. An element only lives in L1 for as
+ * long as it has left in L2, up to the max L1 TTL, so L1
+ * never serves an element Redis has already expired.
+ * </p>
+ * <p>
+ * Writes go to L2, and drop the element from L1, so the
+ * next read picks up the new element from Redis. L1 is only
+ * ever filled with elements read back from Redis, so callers
+ * are free to modify the elements they save.
+ * </p>
+ *
+ * @param <T> the type of cached element
+ * @author Braydon
+ */
+public final class TieredCache<T> {
+    /**
+     * The name of this cache.
+     */
+    @NonNull @Getter private final String name;
+
+    /**
+     * The Redis repository (L2).
+     */
+    @NonNull private final CrudRepository<T, String> repository;
+
+    /**
+     * The function to get the remaining TTL (in millis)
+     * of an element in L2 by its id, negative if none.
+     */
+    @NonNull private final ToLongFunction<String> remainingTtl;
+
+    /**
+     * The longest time (in millis) an element can live in L1.
+     */
+    private final long maxL1Ttl;
+
+    /**
+     * The in-process tier (L1).
+     */
+    @NonNull private final Cache<String, Entry<T>> localCache;
+
+    @NonNull private final LongAdder l1Hits = new LongAdder();
+    @NonNull private final LongAdder l2Hits = new LongAdder();
+    @NonNull private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param name         the name of this cache
+     * @param repository   the Redis repository (L2)
+     * @param remainingTtl the function to get the remaining TTL (in millis) of an element in L2
+     * @param maxWeight    the maximum total weight of L1
+     * @param weigher      the function to weigh an element with
+     * @param maxL1Ttl     the longest time an element can live in L1
+     */
+    public TieredCache(@NonNull String name, @NonNull CrudRepository<T, String> repository, @NonNull ToLongFunction<String> remainingTtl,
+                       long maxWeight, @NonNull ToIntFunction<T> weigher, @NonNull Duration maxL1Ttl) {
+        this.name = name;
+        this.repository = repository;
+        this.remainingTtl = remainingTtl;
+        this.maxL1Ttl = maxL1Ttl.toMillis();
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, Entry<T> entry) -> Math.max(1, weigher.applyAsInt(entry.value())))
+                .expireAfter(new Expiry<String, Entry<T>>() {
+                    @Override
+                    public long expireAfterCreate(String id, Entry<T> entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, entry.expires() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, Entry<T> entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, Entry<T> entry, long currentTime, long currentDuration) {
+                        return currentDuration; // Reads don't extend an element's life
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get an element by its id.
+     *
+     * @param id the id of the element
+     * @return the element, empty if not cached in either tier
+     */
+    @NonNull
+    public Optional<T> findById(@NonNull String id) {
+        Entry<T> entry = localCache.getIfPresent(id);
+        if (entry != null) {
+            l1Hits.increment();
+            return Optional.of(entry.value());
+        }
+        long now = System.currentTimeMillis();
+        Optional<T> cached = repository.findById(id);
+        if (cached.isEmpty()) {
+            misses.increment();
+            return cached;
+        }
+        l2Hits.increment();
+        admit(id, cached.get(), () -> remainingTtl.applyAsLong(id), now);
+        return cached;
+    }
+
+    /**
+     * Get many elements by their ids.
+     * <p>
+     * Elements not in L1 are loaded from L2
+     * together, with the given bulk loader.
+     * </p>
+     *
+     * @param ids    the ids of the elements
+     * @param loader the loader for the elements not in L1
+     * @return the cached elements, mapped by their id
+     */
+    @NonNull
+    public Map<String, T> findAllById(@NonNull Collection<String> ids, @NonNull BulkLoader<T> loader) {
+        Map<String, T> found = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String id : new LinkedHashSet<>(ids)) {
+            Entry<T> entry = localCache.getIfPresent(id);
+            if (entry != null) {
+                l1Hits.increment();
+                found.put(id, entry.value());
+                continue;
+            }
+            toLoad.add(id);
+        }
+        if (toLoad.isEmpty()) {
+            return found;
+        }
+        Map<String, Loaded<T>> loaded = loader.load(toLoad);
+        for (String id : toLoad) {
+            Loaded<T> element = loaded.get(id);
+            if (element == null) {
+                misses.increment();
+                continue;
+            }
+            l2Hits.increment();
+            found.put(id, element.value());
+            admit(id, element.value(), element::remainingTtl, now);
+        }
+        return found;
+    }
+
+    /**
+     * Offer an element read from L2 to L1, which only keeps it
+     * if it's asked for more often than the element it would evict.
+     *
+     * @param id           the id of the element
+     * @param element      the element
+     * @param remainingTtl the remaining TTL (in millis) of the element in L2
+     * @param now          the current time (in millis)
+     */
+    private void admit(@NonNull String id, @NonNull T element, @NonNull LongSupplier remainingTtl, long now) {
+        long ttl = Math.min(maxL1Ttl, remainingTtl.getAsLong());
+        if (ttl > 0L) {
+            localCache.put(id, new Entry<>(element, now + ttl));
+        }
+    }
+
+    /**
+     * Save the given element to Redis,
+     * dropping the old element from L1.
+     *
+     * @param id      the id of the element
+     * @param element the element to save
+     */
+    public void save(@NonNull String id, @NonNull T element) {
+        repository.save(element);
+        localCache.invalidate(id);
+    }
+
+    /**
+     * Remove an element from both tiers.
+     *
+     * @param id the id of the element
+     */
+    public void deleteById(@NonNull String id) {
+        repository.deleteById(id);
+        localCache.invalidate(id);
+    }
+
+    /**
+     * Get the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    @NonNull
+    public Stats getStats() {
+        long l1 = l1Hits.sum();
+        long l2 = l2Hits.sum();
+        long missed = misses.sum();
+        long requests = l1 + l2 + missed;
+        return new Stats(localCache.estimatedSize(), l1, l2, missed, localCache.stats().evictionCount(),
+                requests == 0L ? 0D : (double) l1 / requests,
+                l2 + missed == 0L ? 0D : (double) l2 / (l2 + missed)
+        );
+    }
+
+    /**
+     * The statistics of a cache.
+     *
+     * @param l1Size    the amount of elements in L1
+     * @param l1Hits    the amount of reads served by L1
+     * @param l2Hits    the amount of reads served by L2
+     * @param misses    the amount of reads not served by either tier
+     * @param evictions the amount of elements evicted from (or not admitted to) L1 for weight
+     * @param l1HitRate the share of reads served by L1
+     * @param l2HitRate the share of reads that missed L1 served by L2
+     */
+    public record Stats(long l1Size, long l1Hits, long l2Hits, long misses, long evictions, double l1HitRate, double l2HitRate) { }
+
+    /**
+     * A loader for many elements from L2 at once.
+     *
+     * @param <T> the type of element
+     */
+    @FunctionalInterface
+    public interface BulkLoader<T> {
+        /**
+         * Load the elements with the given ids.
+         *
+         * @param ids the ids of the elements
+         * @return the loaded elements, mapped by their id, missing if not cached
+         */
+        @NonNull Map<String, Loaded<T>> load(@NonNull List<String> ids);
+    }
+
+    /**
+     * An element loaded from L2.
+     *
+     * @param value        the element
+     * @param remainingTtl the remaining TTL (in millis) of the element in L2
+     * @param <T> the type of element
+     */
+    public record Loaded<T>(@NonNull T value, long remainingTtl) { }
+
+    /**
+     * An element in L1.
+     *
+     * @param value   the element
+     * @param expires the time (in millis) the element expires from Redis
+     * @param <T> the type of element
+     */
+    private record Entry<T>(@NonNull T value, long expires) { }
+}
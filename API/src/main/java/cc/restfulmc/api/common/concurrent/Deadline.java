@@ -0,0 +1,105 @@
+package cc.restfulmc.api.common.concurrent;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.ToString;
+
+import java.util.concurrent.*;
+
+/**
+ * A point in time shared by concurrently
+ * running stages of a single operation.
+ * <p>
+ * Every stage of the operation is awaited against
+ * the same deadline, so the whole operation costs
+ * roughly as much as its slowest stage, and never
+ * more than the deadline allows.
+ * </p>
+ *
+ * @author Braydon
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE) @Getter @ToString
+public final class Deadline {
+    /**
+     * The unix timestamp this deadline expires at.
+     */
+    private final long expiresAt;
+
+    /**
+     * Create a deadline that expires
+     * the given amount of millis from now.
+     *
+     * @param millis the millis until the deadline
+     * @return the deadline
+     */
+    @NonNull
+    public static Deadline in(long millis) {
+        return new Deadline(System.currentTimeMillis() + millis);
+    }
+
+    /**
+     * Get the remaining time (in millis) before this deadline.
+     *
+     * @return the remaining time, 0 if expired
+     */
+    public long getRemaining() {
+        return Math.max(0L, expiresAt - System.currentTimeMillis());
+    }
+
+    /**
+     * Check if this deadline has passed.
+     *
+     * @return whether this deadline has passed
+     */
+    public boolean isExpired() {
+        return getRemaining() == 0L;
+    }
+
+    /**
+     * Await the result of the given future.
+     * <p>
+     * If the future fails, the original cause of the
+     * failure is rethrown rather than a wrapped one.
+     * </p>
+     *
+     * @param future the future to await
+     * @return the result of the future
+     * @param <T> the type of result
+     * @throws TimeoutException if this deadline passes before the future completes
+     */
+    @SneakyThrows
+    public <T> T await(@NonNull Future<T> future) throws TimeoutException {
+        try {
+            return future.get(getRemaining(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            throw ex.getCause();
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw ex;
+        }
+    }
+
+    /**
+     * Await the result of the given future, falling
+     * back to the given value if the future fails or
+     * this deadline passes before it completes.
+     *
+     * @param future   the future to await
+     * @param fallback the fallback value
+     * @return the result of the future, otherwise the fallback
+     * @param <T> the type of result
+     */
+    public <T> T awaitOrElse(@NonNull Future<T> future, T fallback) {
+        try {
+            return await(future);
+        } catch (Throwable ex) {
+            if (ex instanceof InterruptedException) { // Preserve the interrupt
+                Thread.currentThread().interrupt();
+            }
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cc.restfulmc.api.common.concurrent;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects concurrent loads of single keys
+ * into batches, and loads each batch at once.
+ * <p>
+ * A batch is loaded once it's full, or once its first
+ * key has waited for the max delay, whichever is first.
+ * Keys submitted more than once to the same batch share
+ * a single future.
+ * </p>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of loaded value
+ * @author Braydon
+ */
+public final class MicroBatcher<K, V> {
+    /**
+     * The maximum amount of keys in a batch.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The maximum time (in millis) a key waits for its batch to fill.
+     */
+    private final long maxDelay;
+
+    /**
+     * The loader for a batch of keys, keys missing from
+     * the returned map are completed with null.
+     */
+    @NonNull private final Function<List<K>, Map<K, V>> loader;
+
+    /**
+     * The executor to load batches on.
+     */
+    @NonNull private final Executor executor;
+
+    /**
+     * The batch currently being filled, null if none.
+     */
+    private Map<K, CompletableFuture<V>> batch;
+
+    /**
+     * @param maxBatchSize the maximum amount of keys in a batch
+     * @param maxDelay     the maximum time (in millis) a key waits for its batch to fill
+     * @param loader       the loader for a batch of keys
+     * @param executor     the executor to load batches on
+     */
+    public MicroBatcher(int maxBatchSize, long maxDelay, @NonNull Function<List<K>, Map<K, V>> loader, @NonNull Executor executor) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    /**
+     * Submit a key to be loaded with the next batch.
+     *
+     * @param key the key to load
+     * @return the future loaded value, null if the loader didn't return one
+     */
+    @NonNull
+    public CompletableFuture<V> submit(@NonNull K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            if (batch == null) { // Start a new batch, and load it once it's waited long enough
+                Map<K, CompletableFuture<V>> started = new LinkedHashMap<>();
+                batch = started;
+                CompletableFuture.delayedExecutor(maxDelay, TimeUnit.MILLISECONDS, executor).execute(() -> flush(started));
+            }
+            future = batch.computeIfAbsent(key, ignored -> new CompletableFuture<>());
+            if (batch.size() >= maxBatchSize) { // The batch is full, load it now
+                full = batch;
+                batch = null;
+            }
+        }
+        if (full != null) {
+            Map<K, CompletableFuture<V>> toLoad = full;
+            executor.execute(() -> load(toLoad));
+        }
+        return future;
+    }
+
+    /**
+     * Load the given batch, if it's still being filled.
+     *
+     * @param started the batch to load
+     */
+    private void flush(@NonNull Map<K, CompletableFuture<V>> started) {
+        synchronized (this) {
+            if (batch != started) { // Already loaded when it filled up
+                return;
+            }
+            batch = null;
+        }
+        load(started);
+    }
+
+    /**
+     * Load the given batch, and complete the future of each key.
+     *
+     * @param toLoad the batch to load
+     */
+    private void load(@NonNull Map<K, CompletableFuture<V>> toLoad) {
+        try {
+            Map<K, V> loaded = loader.apply(new ArrayList<>(toLoad.keySet()));
+            for (Map.Entry<K, CompletableFuture<V>> entry : toLoad.entrySet()) {
+                entry.getValue().complete(loaded.get(entry.getKey()));
+            }
+        } catch (Throwable ex) {
+            for (CompletableFuture<V> future : toLoad.values()) {
+                future.completeExceptionally(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package cc.restfulmc.api.common.concurrent;
+
+import lombok.NonNull;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket with a bounded priority queue in front of it.
+ * <p>
+ * Permits are handed out at a sustained rate, with bursts of up
+ * to the capacity of the bucket. When none are left, callers are
+ * queued by priority and then arrival, and handed a permit as soon
+ * as one is refilled. When the remote side pushes back, the bucket
+ * pauses for as long as it was told to, and halves its rate, then
+ * slowly climbs back to the maximum rate.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class PriorityTokenBucket {
+    private static final long RECOVERY_DELAY = TimeUnit.SECONDS.toNanos(10L); // How long after being throttled to start recovering the rate
+    private static final double RECOVERY_PER_SECOND = 0.02D; // The share of the max rate recovered each second
+    private static final double MIN_RATE_SHARE = 0.1D; // The lowest share of the max rate to back off to
+
+    /**
+     * The maximum rate (in permits per second).
+     */
+    private final double maxRate;
+
+    /**
+     * The maximum amount of permits that can be stored.
+     */
+    private final double capacity;
+
+    /**
+     * The maximum amount of callers that can wait for a permit.
+     */
+    private final int maxQueued;
+
+    /**
+     * The scheduler to hand out queued permits on.
+     */
+    @NonNull private final ScheduledExecutorService scheduler;
+
+    /**
+     * The callers waiting for a permit, in the order they're served.
+     */
+    @NonNull private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+
+    /**
+     * The current rate (in permits per second).
+     */
+    private double rate;
+
+    /**
+     * The amount of permits available.
+     */
+    private double tokens;
+
+    /**
+     * The time (in nanos) the permits were last refilled.
+     */
+    private long lastRefill = System.nanoTime();
+
+    /**
+     * The time (in nanos) no permits are handed out until.
+     */
+    private long pausedUntil = lastRefill;
+
+    /**
+     * The time (in nanos) this bucket was last throttled.
+     */
+    private long lastThrottled = lastRefill - RECOVERY_DELAY;
+
+    /**
+     * The sequence of the next waiter, keeping waiters of the same priority in order.
+     */
+    private long nextSequence;
+
+    /**
+     * Whether handing out queued permits has been scheduled.
+     */
+    private boolean dispatchScheduled;
+
+    /**
+     * @param maxRate   the maximum rate (in permits per second)
+     * @param capacity  the maximum amount of permits that can be stored
+     * @param maxQueued the maximum amount of callers that can wait for a permit
+     * @param scheduler the scheduler to hand out queued permits on
+     */
+    public PriorityTokenBucket(double maxRate, double capacity, int maxQueued, @NonNull ScheduledExecutorService scheduler) {
+        this.maxRate = maxRate;
+        this.capacity = capacity;
+        this.maxQueued = maxQueued;
+        this.scheduler = scheduler;
+        rate = maxRate;
+        tokens = capacity;
+    }
+
+    /**
+     * Acquire a permit.
+     * <p>
+     * The returned future completes once the permit is
+     * granted. Cancelling it gives up the place in the
+     * queue, without using a permit.
+     * </p>
+     *
+     * @param priority the priority of the caller
+     * @return the future completed once the permit is granted,
+     *         failed with a {@link RejectedExecutionException} if the queue is full
+     */
+    @NonNull
+    public synchronized CompletableFuture<Void> acquire(@NonNull Priority priority) {
+        long now = System.nanoTime();
+        refill(now);
+        if (waiters.isEmpty() && now >= pausedUntil && tokens >= 1D) { // A permit is available right away
+            tokens--;
+            return CompletableFuture.completedFuture(null);
+        }
+        if (waiters.size() >= maxQueued) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many callers waiting for a permit"));
+        }
+        Waiter waiter = new Waiter(priority, nextSequence++);
+        waiters.add(waiter);
+        scheduleDispatch(now);
+        return waiter.future;
+    }
+
+    /**
+     * Throttle this bucket, after the remote side has pushed back.
+     *
+     * @param retryAfter the time (in millis) to pause for
+     */
+    public synchronized void throttle(long retryAfter) {
+        long now = System.nanoTime();
+        refill(now);
+        tokens = 0D;
+        pausedUntil = Math.max(pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(retryAfter));
+        if (now - lastThrottled >= TimeUnit.MILLISECONDS.toNanos(retryAfter)) { // Back off once per push back, not per in-flight request
+            rate = Math.max(maxRate * MIN_RATE_SHARE, rate / 2D);
+        }
+        lastThrottled = now;
+    }
+
+    /**
+     * Get the current rate of this bucket.
+     *
+     * @return the rate (in permits per second)
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Get the amount of callers waiting for a permit.
+     *
+     * @return the amount of waiters
+     */
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /**
+     * Hand out permits to the queued callers,
+     * in order, until there are none left.
+     */
+    private synchronized void dispatch() {
+        dispatchScheduled = false;
+        long now = System.nanoTime();
+        refill(now);
+        while (!waiters.isEmpty() && now >= pausedUntil && tokens >= 1D) {
+            if (waiters.poll().future.complete(null)) { // Skip callers that gave up
+                tokens--;
+            }
+        }
+        while (!waiters.isEmpty() && waiters.peek().future.isDone()) { // Drop callers that gave up
+            waiters.poll();
+        }
+        if (!waiters.isEmpty()) {
+            scheduleDispatch(now);
+        }
+    }
+
+    /**
+     * Schedule handing out permits for when the next one is available.
+     *
+     * @param now the current time (in nanos)
+     */
+    private void scheduleDispatch(long now) {
+        if (dispatchScheduled) {
+            return;
+        }
+        dispatchScheduled = true;
+        long untilToken = tokens >= 1D ? 0L : (long) Math.ceil((1D - tokens) / rate * TimeUnit.SECONDS.toNanos(1L));
+        long delay = Math.max(pausedUntil - now, untilToken);
+        scheduler.schedule(this::dispatch, Math.max(delay, 0L), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Refill the permits for the time passed,
+     * and recover the rate if it has backed off.
+     *
+     * @param now the current time (in nanos)
+     */
+    private void refill(long now) {
+        double elapsed = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1L);
+        lastRefill = now;
+        if (now < pausedUntil) { // Nothing refills while paused
+            return;
+        }
+        if (rate < maxRate && now - lastThrottled >= RECOVERY_DELAY) {
+            rate = Math.min(maxRate, rate + maxRate * RECOVERY_PER_SECOND * elapsed);
+        }
+        tokens = Math.min(capacity, tokens + rate * elapsed);
+    }
+
+    /**
+     * The priority of a caller.
+     */
+    public enum Priority {
+        /**
+         * A caller waiting on behalf of a user, served first.
+         */
+        INTERACTIVE,
+
+        /**
+         * A caller refreshing or prefetching in the background.
+         */
+        BACKGROUND
+    }
+
+    /**
+     * A caller waiting for a permit.
+     *
+     * @param priority the priority of the caller
+     * @param sequence the order the caller arrived in
+     * @param future   the future completed once the permit is granted
+     */
+    private record Waiter(@NonNull Priority priority, long sequence, @NonNull CompletableFuture<Void> future) implements Comparable<Waiter> {
+        private Waiter(@NonNull Priority priority, long sequence) {
+            this(priority, sequence, new CompletableFuture<>());
+        }
+
+        @Override
+        public int compareTo(@NonNull Waiter other) {
+            int compared = priority.compareTo(other.priority);
+            return compared != 0 ? compared : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cc.restfulmc.api.common.concurrent;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent loads of the same key.
+ * <p>
+ * The first caller for a key runs the load, and any
+ * callers arriving while it's in flight attach to it
+ * and share its result (or exception), rather than
+ * repeating the same work.
+ * </p>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of loaded value
+ * @author Braydon
+ */
+public final class SingleFlight<K, V> {
+    /**
+     * The loads currently in flight, mapped by their key.
+     */
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Load the value for the given key, attaching
+     * to an in-flight load of the key if present.
+     *
+     * @param key    the key to load
+     * @param loader the loader to run if no load is in flight
+     * @return the loaded value
+     */
+    @SneakyThrows
+    public V execute(@NonNull K key, @NonNull Callable<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) { // Attach to the in-flight load
+            try {
+                return existing.get();
+            } catch (ExecutionException ex) {
+                throw ex.getCause();
+            }
+        }
+        try {
+            V value = loader.call();
+            flight.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package cc.restfulmc.api.common.concurrent;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Races an attempt against a list of candidates,
+ * in the style of Happy Eyeballs (RFC 8305).
+ * <p>
+ * The attempt against the first candidate is started
+ * right away, and each following candidate is tried
+ * once the previous attempt fails, or has gone without
+ * an answer for the attempt delay, whichever is first.
+ * The first attempt to succeed wins the race, and the
+ * attempts still running are cancelled.
+ * </p>
+ *
+ * @param <C> the type of candidate
+ * @param <T> the type of result
+ * @author Braydon
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc8305">RFC 8305</a>
+ */
+public final class StaggeredRace<C, T> {
+    /**
+     * The candidates to race, in order of preference.
+     */
+    @NonNull private final List<C> candidates;
+
+    /**
+     * The delay (in millis) before starting the next attempt.
+     */
+    private final long attemptDelay;
+
+    /**
+     * The attempt to make against each candidate.
+     */
+    @NonNull private final Function<C, CompletableFuture<T>> attempt;
+
+    /**
+     * The attempts that have been started.
+     */
+    @NonNull private final List<CompletableFuture<T>> attempts = new ArrayList<>();
+
+    /**
+     * The future completed with the result of the winning attempt.
+     */
+    @NonNull private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    /**
+     * The causes of the attempts that have failed, in the order they failed.
+     */
+    @NonNull private final List<Throwable> failures = new ArrayList<>();
+
+    private StaggeredRace(@NonNull List<C> candidates, long attemptDelay, @NonNull Function<C, CompletableFuture<T>> attempt) {
+        this.candidates = candidates;
+        this.attemptDelay = attemptDelay;
+        this.attempt = attempt;
+    }
+
+    /**
+     * Race the given attempt against the given candidates.
+     * <p>
+     * If every attempt fails, the race fails with the cause
+     * of the last failure, with the causes of the earlier
+     * failures attached to it as suppressed exceptions.
+     * </p>
+     *
+     * @param candidates   the candidates to race, in order of preference
+     * @param attemptDelay the delay (in millis) before starting the next attempt
+     * @param attempt      the attempt to make against each candidate
+     * @return the future result of the first successful attempt
+     * @param <C> the type of candidate
+     * @param <T> the type of result
+     */
+    @NonNull
+    public static <C, T> CompletableFuture<T> race(@NonNull List<C> candidates, long attemptDelay,
+                                                   @NonNull Function<C, CompletableFuture<T>> attempt) {
+        if (candidates.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No candidates to race"));
+        }
+        StaggeredRace<C, T> race = new StaggeredRace<>(List.copyOf(candidates), attemptDelay, attempt);
+        race.result.whenComplete((value, ex) -> {
+            if (race.result.isCancelled()) { // The race was called off
+                race.cancelAttempts();
+            }
+        });
+        race.start(0);
+        return race.result;
+    }
+
+    /**
+     * Race the given attempt against the given
+     * candidates, and find out which one won.
+     *
+     * @param candidates   the candidates to race, in order of preference
+     * @param attemptDelay the delay (in millis) before starting the next attempt
+     * @param attempt      the attempt to make against each candidate
+     * @return the future winner of the race
+     * @param <C> the type of candidate
+     * @param <T> the type of result
+     * @see #race(List, long, Function) for how the race is run
+     */
+    @NonNull
+    public static <C, T> CompletableFuture<Winner<C, T>> raceForWinner(@NonNull List<C> candidates, long attemptDelay,
+                                                                     @NonNull Function<C, CompletableFuture<T>> attempt) {
+        return race(candidates, attemptDelay, candidate -> {
+            CompletableFuture<T> future = attempt.apply(candidate);
+            CompletableFuture<Winner<C, T>> winner = future.thenApply(value -> new Winner<>(candidate, value));
+            winner.whenComplete((value, ex) -> {
+                if (winner.isCancelled()) { // Pass the cancellation on to the attempt itself
+                    future.cancel(false);
+                }
+            });
+            return winner;
+        });
+    }
+
+    /**
+     * Start the attempt against the candidate at the given index,
+     * unless the race is over or that attempt was already started.
+     *
+     * @param index the index of the candidate
+     */
+    private void start(int index) {
+        CompletableFuture<T> future;
+        synchronized (this) {
+            if (result.isDone() || index != attempts.size() || index >= candidates.size()) {
+                return;
+            }
+            try {
+                future = attempt.apply(candidates.get(index));
+            } catch (Throwable ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+            attempts.add(future);
+        }
+        future.whenComplete(this::onComplete);
+        if (index + 1 < candidates.size()) { // Start the next attempt if this one hasn't answered in time
+            CompletableFuture.delayedExecutor(attemptDelay, TimeUnit.MILLISECONDS).execute(() -> start(index + 1));
+        }
+    }
+
+    /**
+     * Handle the completion of an attempt.
+     *
+     * @param value the result of the attempt, null if failed
+     * @param ex    the cause of the failure, null if successful
+     */
+    private void onComplete(T value, Throwable ex) {
+        if (ex == null) { // We have a winner, cancel the rest
+            if (result.complete(value)) {
+                cancelAttempts();
+            }
+            return;
+        }
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        List<Throwable> lostTo = null;
+        synchronized (this) {
+            failures.add(cause);
+            if (failures.size() == candidates.size()) {
+                lostTo = List.copyOf(failures);
+            }
+        }
+        if (lostTo != null) { // Every attempt failed
+            for (Throwable earlier : lostTo.subList(0, lostTo.size() - 1)) {
+                if (earlier != cause) {
+                    cause.addSuppressed(earlier);
+                }
+            }
+            result.completeExceptionally(cause);
+        } else { // Don't wait for the delay, try the next candidate now
+            int next;
+            synchronized (this) {
+                next = attempts.size();
+            }
+            start(next);
+        }
+    }
+
+    /**
+     * Cancel the attempts that are still running.
+     */
+    private void cancelAttempts() {
+        List<CompletableFuture<T>> running;
+        synchronized (this) {
+            running = List.copyOf(attempts);
+        }
+        for (CompletableFuture<T> future : running) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * The winner of a race.
+     *
+     * @param candidate the winning candidate
+     * @param value     the result of the winning attempt
+     * @param <C> the type of candidate
+     * @param <T> the type of result
+     */
+    public record Winner<C, T>(@NonNull C candidate, T value) { }
+}
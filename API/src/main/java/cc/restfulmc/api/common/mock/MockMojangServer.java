@@ -0,0 +1,499 @@
+package cc.restfulmc.api.common.mock;
+
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.ImageUtils;
+import cc.restfulmc.api.common.UUIDUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An embeddable stand-in for the Mojang session server,
+ * API, and textures server, for testing offline.
+ * <p>
+ * Players are generated on the fly from their index, so
+ * the corpus costs no memory no matter its size. Player
+ * {@code n} is named {@code Mock_n}, and every few players
+ * have a slim, legacy, or caped skin. Textures are generated
+ * from their id, so every texture url is served, including
+ * the default skin. Latency, errors, and rate limiting can
+ * be injected into every response.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Log4j2(topic = "Mock Mojang Server")
+public final class MockMojangServer {
+    private static final String NAME_PREFIX = "mock_";
+    private static final long UUID_MOST_BITS = 0x4D6F636B00004000L; // "Mock", version 4
+    private static final long UUID_VARIANT_BITS = 0x8000000000000000L;
+    private static final int BLOCKED_SERVERS = 1000; // The amount of hashes in the blocklist
+
+    /**
+     * The settings of this server.
+     */
+    @NonNull @Getter private final Settings settings;
+
+    /**
+     * The underlying HTTP server.
+     */
+    @NonNull private final HttpServer server;
+
+    /**
+     * The generated textures, mapped by their id.
+     */
+    @NonNull private final Cache<String, byte[]> textures = CacheBuilder.newBuilder()
+            .maximumSize(10_000L)
+            .build();
+
+    /**
+     * The amount of requests served.
+     */
+    @NonNull private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The blocklist body, one hash per line.
+     */
+    @NonNull private final byte[] blockedServers;
+
+    public MockMojangServer(@NonNull Settings settings) throws IOException {
+        this.settings = settings;
+        server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()), 0);
+        server.setExecutor(Constants.VIRTUAL_EXECUTOR);
+        server.createContext("/", this::handle);
+
+        StringBuilder hashes = new StringBuilder();
+        for (int i = 0; i < BLOCKED_SERVERS; i++) {
+            hashes.append(Hashing.sha1().hashString("*.blocked-%s.mock".formatted(i), StandardCharsets.ISO_8859_1)).append('\n');
+        }
+        blockedServers = hashes.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+        log.info("Serving {} mock players on {}", settings.getPlayers(), getUrl());
+    }
+
+    /**
+     * Stop serving requests.
+     */
+    public void stop() {
+        server.stop(0);
+        log.info("Stopped after serving {} requests", requests.get());
+    }
+
+    /**
+     * Get the base url of this server.
+     *
+     * @return the url
+     */
+    @NonNull
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://%s:%s".formatted(address.getHostString(), address.getPort());
+    }
+
+    /**
+     * Get the name of the player at the given index.
+     *
+     * @param index the index of the player
+     * @return the player name
+     */
+    @NonNull
+    public static String getName(int index) {
+        return "Mock_" + index;
+    }
+
+    /**
+     * Handle a request, injecting latency and faults first.
+     *
+     * @param exchange the request exchange
+     */
+    private void handle(@NonNull HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latency = settings.getLatency() + (settings.getLatencyJitter() > 0L ? random.nextLong(settings.getLatencyJitter() + 1L) : 0L);
+            if (latency > 0L) {
+                sleep(latency);
+            }
+            if (random.nextDouble() < settings.getRateLimitRate()) { // Inject a rate limit
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1L);
+                return;
+            }
+            if (random.nextDouble() < settings.getErrorRate()) { // Inject an error
+                exchange.sendResponseHeaders(500, -1L);
+                return;
+            }
+            route(exchange);
+        } catch (Exception ex) {
+            log.warn("Failed handling {}: {}", exchange.getRequestURI(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Route a request to its endpoint.
+     *
+     * @param exchange the request exchange
+     */
+    private void route(@NonNull HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (method.equals("GET") && path.startsWith("/session/minecraft/profile/")) {
+            handleProfile(exchange, path.substring("/session/minecraft/profile/".length()));
+        } else if (method.equals("GET") && path.startsWith("/users/profiles/minecraft/")) {
+            handleUsername(exchange, path.substring("/users/profiles/minecraft/".length()));
+        } else if (method.equals("POST") && path.equals("/profiles/minecraft")) {
+            handleUsernames(exchange);
+        } else if (method.equals("GET") && path.equals("/blockedservers")) {
+            send(exchange, 200, "text/plain", blockedServers);
+        } else if (method.equals("GET") && path.startsWith("/texture/")) {
+            handleTexture(exchange, path.substring("/texture/".length()));
+        } else if (path.equals("/")) { // Status probes
+            send(exchange, 200, "text/plain", new byte[0]);
+        } else {
+            exchange.sendResponseHeaders(404, -1L);
+        }
+    }
+
+    /**
+     * Handle a request for a player profile by UUID.
+     *
+     * @param exchange the request exchange
+     * @param rawUuid  the requested UUID, with or without dashes
+     */
+    private void handleProfile(@NonNull HttpExchange exchange, @NonNull String rawUuid) throws IOException {
+        int index = getIndex(rawUuid);
+        if (index == -1) { // No profile, Mojang responds with no content
+            exchange.sendResponseHeaders(204, -1L);
+            return;
+        }
+        String id = getUuid(index).toString().replace("-", "");
+        String name = getName(index);
+
+        // Build the textures, skins are slim every 3rd player,
+        // legacy every 10th player, and caped every 4th player
+        JsonObject textures = new JsonObject();
+        JsonObject skin = new JsonObject();
+        skin.addProperty("url", getTextureUrl("skin-%s%s".formatted(index, index % 10 == 0 ? "-legacy" : "")));
+        if (index % 3 == 0) {
+            JsonObject metadata = new JsonObject();
+            metadata.addProperty("model", "slim");
+            skin.add("metadata", metadata);
+        }
+        textures.add("SKIN", skin);
+        if (index % 4 == 0) {
+            JsonObject cape = new JsonObject();
+            cape.addProperty("url", getTextureUrl("cape-%s".formatted(index)));
+            textures.add("CAPE", cape);
+        }
+        JsonObject value = new JsonObject();
+        value.addProperty("timestamp", System.currentTimeMillis());
+        value.addProperty("profileId", id);
+        value.addProperty("profileName", name);
+        value.add("textures", textures);
+
+        JsonObject property = new JsonObject();
+        property.addProperty("name", "textures");
+        property.addProperty("value", Base64.getEncoder().encodeToString(Constants.GSON.toJson(value).getBytes(StandardCharsets.UTF_8)));
+        if ("false".equals(getQueryParameter(exchange, "unsigned"))) { // Not a valid signature, but shaped like one
+            byte[] signature = new byte[512];
+            new Random(index).nextBytes(signature);
+            property.addProperty("signature", Base64.getEncoder().encodeToString(signature));
+        }
+        JsonArray properties = new JsonArray();
+        properties.add(property);
+
+        JsonObject profile = new JsonObject();
+        profile.addProperty("id", id);
+        profile.addProperty("name", name);
+        profile.add("properties", properties);
+        profile.add("profileActions", new JsonArray());
+        sendJson(exchange, profile);
+    }
+
+    /**
+     * Handle a request for the UUID of a player by username.
+     *
+     * @param exchange the request exchange
+     * @param username the requested username
+     */
+    private void handleUsername(@NonNull HttpExchange exchange, @NonNull String username) throws IOException {
+        int index = getIndexByName(username);
+        if (index == -1) {
+            exchange.sendResponseHeaders(404, -1L);
+            return;
+        }
+        sendJson(exchange, toNameObject(index));
+    }
+
+    /**
+     * Handle a request for the UUIDs of players by username, in bulk.
+     *
+     * @param exchange the request exchange
+     */
+    private void handleUsernames(@NonNull HttpExchange exchange) throws IOException {
+        JsonArray usernames;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            usernames = Constants.GSON.fromJson(reader, JsonArray.class);
+        }
+        if (usernames == null || usernames.size() > 10) { // Mojang only resolves up to 10 at once
+            exchange.sendResponseHeaders(400, -1L);
+            return;
+        }
+        JsonArray found = new JsonArray();
+        for (JsonElement username : usernames) {
+            int index = getIndexByName(username.getAsString());
+            if (index != -1) { // Unknown names are left out
+                found.add(toNameObject(index));
+            }
+        }
+        sendJson(exchange, found);
+    }
+
+    /**
+     * Handle a request for a texture.
+     *
+     * @param exchange the request exchange
+     * @param id       the id of the texture
+     */
+    @SneakyThrows
+    private void handleTexture(@NonNull HttpExchange exchange, @NonNull String id) {
+        byte[] texture = textures.get(id, () -> generateTexture(id));
+        send(exchange, 200, "image/png", texture);
+    }
+
+    /**
+     * Generate the texture with the given id.
+     * <p>
+     * Textures are made up of 4x4 blocks of colors seeded
+     * by the id, so each texture is distinct but repeatable.
+     * Capes and legacy skins are 64x32, other skins are 64x64.
+     * </p>
+     *
+     * @param id the id of the texture
+     * @return the PNG bytes of the texture
+     */
+    @NonNull
+    private static byte[] generateTexture(@NonNull String id) {
+        boolean halfHeight = id.startsWith("cape-") || id.endsWith("-legacy");
+        BufferedImage image = new BufferedImage(64, halfHeight ? 32 : 64, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(id.hashCode());
+        for (int x = 0; x < image.getWidth(); x += 4) {
+            for (int y = 0; y < image.getHeight(); y += 4) {
+                int color = 0xFF000000 | random.nextInt(0x1000000);
+                for (int dx = 0; dx < 4; dx++) {
+                    for (int dy = 0; dy < 4; dy++) {
+                        image.setRGB(x + dx, y + dy, color);
+                    }
+                }
+            }
+        }
+        return ImageUtils.toByteArray(image);
+    }
+
+    /**
+     * Get the url of the texture with the given id.
+     *
+     * @param id the id of the texture
+     * @return the texture url
+     */
+    @NonNull
+    private String getTextureUrl(@NonNull String id) {
+        return getUrl() + "/texture/" + id;
+    }
+
+    /**
+     * Build the username to UUID object of the player at the given index.
+     *
+     * @param index the index of the player
+     * @return the object
+     */
+    @NonNull
+    private static JsonObject toNameObject(int index) {
+        JsonObject object = new JsonObject();
+        object.addProperty("id", getUuid(index).toString().replace("-", ""));
+        object.addProperty("name", getName(index));
+        return object;
+    }
+
+    /**
+     * Get the UUID of the player at the given index.
+     *
+     * @param index the index of the player
+     * @return the UUID
+     */
+    @NonNull
+    private static UUID getUuid(int index) {
+        return new UUID(UUID_MOST_BITS, UUID_VARIANT_BITS | index);
+    }
+
+    /**
+     * Get the index of the player with the given UUID.
+     *
+     * @param rawUuid the UUID, with or without dashes
+     * @return the index, -1 if not a player
+     */
+    private int getIndex(@NonNull String rawUuid) {
+        UUID uuid;
+        try {
+            uuid = rawUuid.length() == 32 ? UUIDUtils.addDashes(rawUuid) : UUID.fromString(rawUuid);
+        } catch (IllegalArgumentException ex) {
+            return -1;
+        }
+        long index = uuid.getLeastSignificantBits() & ~UUID_VARIANT_BITS;
+        if (uuid.getMostSignificantBits() != UUID_MOST_BITS || index >= settings.getPlayers()) {
+            return -1;
+        }
+        return (int) index;
+    }
+
+    /**
+     * Get the index of the player with the given name.
+     *
+     * @param name the name of the player, in any case
+     * @return the index, -1 if not a player
+     */
+    private int getIndexByName(@NonNull String name) {
+        String lowerName = name.toLowerCase();
+        if (!lowerName.startsWith(NAME_PREFIX)) {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(lowerName.substring(NAME_PREFIX.length()));
+            return index >= 0 && index < settings.getPlayers() && getName(index).equalsIgnoreCase(name) ? index : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get a query parameter of the given request.
+     *
+     * @param exchange the request exchange
+     * @param name     the name of the parameter
+     * @return the parameter value, null if not present
+     */
+    private static String getQueryParameter(@NonNull HttpExchange exchange, @NonNull String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator != -1 && parameter.substring(0, separator).equals(name)) {
+                return parameter.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Send the given object as Json.
+     *
+     * @param exchange the request exchange
+     * @param json     the Json to send
+     */
+    private static void sendJson(@NonNull HttpExchange exchange, @NonNull JsonElement json) throws IOException {
+        send(exchange, 200, "application/json", Constants.GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send a response.
+     *
+     * @param exchange    the request exchange
+     * @param status      the status code
+     * @param contentType the content type
+     * @param body        the body
+     */
+    private static void send(@NonNull HttpExchange exchange, int status, @NonNull String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1L : body.length);
+        if (body.length > 0) {
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+    }
+
+    /**
+     * Sleep for the given time, preserving interrupts.
+     *
+     * @param millis the time (in millis) to sleep
+     */
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The settings of a mock server.
+     */
+    @Builder @Getter
+    public static final class Settings {
+        /**
+         * The host to bind to.
+         */
+        @Builder.Default @NonNull private final String host = "127.0.0.1";
+
+        /**
+         * The port to bind to, 0 for any.
+         */
+        private final int port;
+
+        /**
+         * The amount of players in the corpus.
+         */
+        @Builder.Default private final int players = 10_000;
+
+        /**
+         * The time (in millis) added to every response.
+         */
+        private final long latency;
+
+        /**
+         * The most time (in millis) randomly added on top of the latency.
+         */
+        private final long latencyJitter;
+
+        /**
+         * The ratio of requests answered with a server error.
+         */
+        private final double errorRate;
+
+        /**
+         * The ratio of requests answered with a rate limit.
+         */
+        private final double rateLimitRate;
+    }
+}
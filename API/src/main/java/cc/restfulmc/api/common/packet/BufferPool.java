@@ -0,0 +1,110 @@
+package cc.restfulmc.api.common.packet;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A pool of reusable {@link ByteBuffer}'s
+ * for reading packets into.
+ * <p>
+ * Buffers are pooled in power of two size classes, from
+ * {@link #MIN_BUFFER_SIZE} up to {@link TCPPacket#MAX_PACKET_SIZE},
+ * so large status responses don't allocate (and throw away)
+ * a fresh array for every ping. The larger size classes pool
+ * fewer buffers, so each size class pins at most about
+ * {@link #MAX_POOLED_BYTES_PER_CLASS}, or a single buffer
+ * for the size classes larger than that.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class BufferPool {
+    /**
+     * The shared pool instance.
+     */
+    public static final BufferPool INSTANCE = new BufferPool();
+
+    private static final int MIN_BUFFER_SIZE = 4 * 1024; // The smallest pooled buffer (4 KiB)
+    private static final int MAX_POOLED_PER_CLASS = 32; // The most buffers pooled per size class
+    private static final int MAX_POOLED_BYTES_PER_CLASS = 1024 * 1024; // The most memory pooled per size class (1 MiB)
+
+    /**
+     * The pooled buffers, indexed by their size class.
+     */
+    @NonNull private final Queue<ByteBuffer>[] pools;
+
+    @SuppressWarnings("unchecked")
+    private BufferPool() {
+        pools = new Queue[sizeClass(TCPPacket.MAX_PACKET_SIZE) + 1];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new ArrayBlockingQueue<>(Math.clamp(MAX_POOLED_BYTES_PER_CLASS / (MIN_BUFFER_SIZE << i), 1, MAX_POOLED_PER_CLASS));
+        }
+    }
+
+    /**
+     * Acquire a cleared buffer with at least the given capacity.
+     *
+     * @param capacity the minimum capacity
+     * @return the buffer
+     * @throws IOException if the capacity is over the packet size cap
+     */
+    @NonNull
+    public ByteBuffer acquire(int capacity) throws IOException {
+        if (capacity > TCPPacket.MAX_PACKET_SIZE) {
+            throw new IOException("Packet too large (%s bytes)".formatted(capacity));
+        }
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = pools[sizeClass].poll();
+        return buffer == null ? ByteBuffer.allocate(MIN_BUFFER_SIZE << sizeClass) : buffer.clear();
+    }
+
+    /**
+     * Acquire a larger buffer holding the
+     * flipped contents of the given buffer,
+     * releasing the given buffer.
+     *
+     * @param buffer   the buffer to grow
+     * @param capacity the minimum capacity
+     * @return the grown buffer
+     * @throws IOException if the capacity is over the packet size cap
+     */
+    @NonNull
+    public ByteBuffer grow(@NonNull ByteBuffer buffer, int capacity) throws IOException {
+        ByteBuffer grown = acquire(capacity).put(buffer.flip());
+        release(buffer);
+        return grown;
+    }
+
+    /**
+     * Release the given buffer back to the pool.
+     * <p>
+     * The buffer must not be used after release.
+     * </p>
+     *
+     * @param buffer the buffer to release
+     */
+    public void release(@NonNull ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (capacity < MIN_BUFFER_SIZE || Integer.bitCount(capacity) != 1 || capacity > TCPPacket.MAX_PACKET_SIZE) {
+            return; // Not one of ours
+        }
+        pools[sizeClass(capacity)].offer(buffer); // Dropped if the pool is full
+    }
+
+    /**
+     * Get the size class for the given capacity.
+     *
+     * @param capacity the capacity
+     * @return the size class
+     */
+    private static int sizeClass(int capacity) {
+        if (capacity <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,22 @@
+package cc.restfulmc.api.common.packet;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A packet sent from the server to the client,
+ * decoded from the {@link ByteBuffer} it was received in.
+ *
+ * @author Braydon
+ */
+public interface ClientboundPacket {
+    /**
+     * Read this packet from the given buffer.
+     *
+     * @param buffer the buffer to read from
+     * @throws IOException if the packet is invalid
+     */
+    void read(@NonNull ByteBuffer buffer) throws IOException;
+}
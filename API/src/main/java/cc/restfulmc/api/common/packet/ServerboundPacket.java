@@ -0,0 +1,28 @@
+package cc.restfulmc.api.common.packet;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A packet sent from the client to the server,
+ * encoded into a {@link ByteBuffer} to be sent.
+ *
+ * @author Braydon
+ */
+public interface ServerboundPacket {
+    /**
+     * Get the maximum amount of bytes
+     * this packet can be written as.
+     *
+     * @return the maximum size of this packet
+     */
+    int getMaxSize();
+
+    /**
+     * Write this packet to the given buffer.
+     *
+     * @param buffer the buffer to write to, with at least {@link #getMaxSize()} bytes remaining
+     */
+    void write(@NonNull ByteBuffer buffer);
+}
@@ -2,65 +2,132 @@ package cc.restfulmc.api.common.packet;
 
 import lombok.NonNull;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Represents a packet in the
  * Minecraft Java protocol.
+ * <p>
+ * Packets are written to, and read from, {@link ByteBuffer}'s
+ * so they can be driven by non-blocking channels without any
+ * intermediate streams or copies. Each packet implements
+ * {@link ServerboundPacket} and/or {@link ClientboundPacket},
+ * depending on the direction(s) it travels in.
+ * </p>
  *
  * @author Braydon
  * @see <a href="https://wiki.vg/Protocol">Protocol Docs</a>
  */
 public abstract class TCPPacket {
     /**
-     * Process this packet.
+     * The largest packet we'll accept (2 MiB).
+     */
+    public static final int MAX_PACKET_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Write a variable integer to the given buffer.
      *
-     * @param inputStream the input stream to read from
-     * @param outputStream the output stream to write to
-     * @throws IOException if an I/O error occurs
+     * @param buffer the buffer to write to
+     * @param value  the integer to write
      */
-    public abstract void process(@NonNull DataInputStream inputStream, @NonNull DataOutputStream outputStream) throws IOException;
+    public static void writeVarInt(@NonNull ByteBuffer buffer, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
 
     /**
-     * Write a variable integer to the output stream.
+     * Read a variable integer from the given buffer.
+     * <p>
+     * If the buffer doesn't yet hold the whole integer,
+     * -1 is returned, and the position is left undefined.
+     * </p>
      *
-     * @param outputStream the output stream to write to
-     * @param paramInt the integer to write
-     * @throws IOException if an I/O error occurs
+     * @param buffer the buffer to read from
+     * @return the integer that was read, -1 if incomplete
+     * @throws IOException if the integer is too big
      */
-    protected final void writeVarInt(DataOutputStream outputStream, int paramInt) throws IOException {
-        while (true) {
-            if ((paramInt & 0xFFFFFF80) == 0) {
-                outputStream.writeByte(paramInt);
-                return;
+    public static int readVarInt(@NonNull ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            if (!buffer.hasRemaining()) { // Not enough data yet
+                return -1;
+            }
+            byte current = buffer.get();
+            value |= (current & 0x7F) << i * 7;
+            if ((current & 0x80) != 128) {
+                return value;
             }
-            outputStream.writeByte(paramInt & 0x7F | 0x80);
-            paramInt >>>= 7;
         }
+        throw new IOException("VarInt too big");
     }
 
     /**
-     * Read a variable integer from the input stream.
+     * Get the amount of bytes the given
+     * integer takes up as a variable integer.
      *
-     * @param inputStream the input stream to read from
-     * @return the integer that was read
-     * @throws IOException if an I/O error occurs
+     * @param value the integer
+     * @return the size of the variable integer
      */
-    protected final int readVarInt(@NonNull DataInputStream inputStream) throws IOException {
-        int i = 0;
-        int j = 0;
-        while (true) {
-            int k = inputStream.readByte();
-            i |= (k & 0x7F) << j++ * 7;
-            if (j > 5) {
-                throw new RuntimeException("VarInt too big");
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & 0xFFFFFF80) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    /**
+     * Write a length prefixed UTF-8 string to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the string to write
+     */
+    protected static void writeString(@NonNull ByteBuffer buffer, @NonNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Get a stream over the remaining
+     * bytes of the given buffer.
+     * <p>
+     * The stream reads straight from the buffer,
+     * consuming it as it goes, without copying it.
+     * </p>
+     *
+     * @param buffer the buffer to stream
+     * @return the stream
+     */
+    @NonNull
+    protected static InputStream asInputStream(@NonNull ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
             }
-            if ((k & 0x80) != 128) {
-                break;
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                length = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, length);
+                return length;
             }
-        }
-        return i;
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -6,11 +6,15 @@ import java.io.IOException;
 import java.net.DatagramSocket;
 
 /**
- * Represents a packet in the
- * Minecraft Bedrock protocol.
+ * Represents a packet sent or received
+ * over a blocking {@link DatagramSocket}.
+ * <p>
+ * Packets driven by a non-blocking engine instead implement
+ * {@link ServerboundPacket} and/or {@link ClientboundPacket}.
+ * </p>
  *
  * @author Braydon
- * @see <a href="https://wiki.vg/Raknet_Protocol">Protocol Docs</a>
+ * @see <a href="https://wiki.vg/Query">Query Docs</a>
  */
 public abstract class UDPPacket {
     /**
@@ -20,4 +24,4 @@ public abstract class UDPPacket {
      * @throws IOException if an I/O error occurs
      */
     public abstract void process(@NonNull DatagramSocket socket) throws IOException;
-}
\ No newline at end of file
+}
@@ -1,13 +1,11 @@
 package cc.restfulmc.api.common.packet.impl.bedrock;
 
-import cc.restfulmc.api.common.packet.UDPPacket;
+import cc.restfulmc.api.common.packet.ServerboundPacket;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
+import lombok.ToString;
 
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * This packet is sent by the client to the server to
@@ -17,26 +15,43 @@ import java.nio.ByteOrder;
  * @author Braydon
  * @see <a href="https://wiki.vg/Raknet_Protocol#Unconnected_Ping">Protocol Docs</a>
  */
-public final class BedrockUnconnectedPingPacket extends UDPPacket {
+@AllArgsConstructor @ToString
+public final class BedrockUnconnectedPingPacket implements ServerboundPacket {
+    public static final int SIZE = 33; // The size of the packet
+    static final byte[] MAGIC = { 0, -1, -1, 0, -2, -2, -2, -2, -3, -3, -3, -3, 18, 52, 86, 120 };
     private static final byte ID = 0x01; // The ID of the packet
-    private static final byte[] MAGIC = { 0, -1, -1, 0, -2, -2, -2, -2, -3, -3, -3, -3, 18, 52, 86, 120 };
 
     /**
-     * Process this packet.
+     * The time of the ping, echoed back by the server in its pong.
+     */
+    private final long pingTime;
+
+    /**
+     * The GUID of the client.
+     */
+    private final long clientGuid;
+
+    /**
+     * Get the maximum amount of bytes
+     * this packet can be written as.
      *
-     * @param socket the socket to process the packet for
-     * @throws IOException if an I/O error occurs
+     * @return the maximum size of this packet
      */
     @Override
-    public void process(@NonNull DatagramSocket socket) throws IOException {
-        // Construct the packet buffer
-        ByteBuffer buffer = ByteBuffer.allocate(33).order(ByteOrder.LITTLE_ENDIAN);;
+    public int getMaxSize() {
+        return SIZE;
+    }
+
+    /**
+     * Write this packet to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void write(@NonNull ByteBuffer buffer) {
         buffer.put(ID); // Packet ID
-        buffer.putLong(System.currentTimeMillis()); // Timestamp
+        buffer.putLong(pingTime); // Timestamp
         buffer.put(MAGIC); // Magic
-        buffer.putLong(0L); // Client GUID
-
-        // Send the packet
-        socket.send(new DatagramPacket(buffer.array(), 0, buffer.limit()));
+        buffer.putLong(clientGuid); // Client GUID
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,15 @@
 package cc.restfulmc.api.common.packet.impl.bedrock;
 
-import cc.restfulmc.api.common.packet.UDPPacket;
-import cc.restfulmc.api.model.server.bedrock.Edition;
+import cc.restfulmc.api.common.packet.ClientboundPacket;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * This packet is sent by the server to the client in
@@ -19,44 +18,54 @@ import java.nio.charset.StandardCharsets;
  * @author Braydon
  * @see <a href="https://wiki.vg/Raknet_Protocol#Unconnected_Pong">Protocol Docs</a>
  */
-@Getter
-public final class BedrockUnconnectedPongPacket extends UDPPacket {
+@Getter @ToString
+public final class BedrockUnconnectedPongPacket implements ClientboundPacket {
     private static final byte ID = 0x1C; // The ID of the packet
 
+    /**
+     * The time of the ping this pong is for.
+     */
+    private long pingTime;
+
+    /**
+     * The GUID of the server.
+     */
+    private long serverGuid;
+
     /**
      * The response from the server, null if none.
      */
     private String response;
 
     /**
-     * Process this packet.
+     * Read this packet from the given buffer.
      *
-     * @param socket the socket to process the packet for
-     * @throws IOException if an I/O error occurs
+     * @param buffer the buffer to read from
+     * @throws IOException if the packet is invalid
      */
     @Override
-    public void process(@NonNull DatagramSocket socket) throws IOException {
-        // Handle receiving of the packet
-        byte[] receiveData = new byte[2048];
-        DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
-        socket.receive(receivePacket);
-
-        // Construct a buffer from the received packet
-        ByteBuffer buffer = ByteBuffer.wrap(receivePacket.getData()).order(ByteOrder.LITTLE_ENDIAN);
-        byte id = buffer.get(); // The received packet id
-        if (id == ID) {
-            String response = new String(buffer.array(), StandardCharsets.UTF_8).trim(); // Extract the response
-
-            // Trim the length of the response (short) from the
-            // start of the string, which begins with the edition name
-            for (Edition edition : Edition.values()) {
-                int startIndex = response.indexOf(edition.name());
-                if (startIndex != -1) {
-                    response = response.substring(startIndex);
-                    break;
-                }
+    public void read(@NonNull ByteBuffer buffer) throws IOException {
+        try {
+            byte id = buffer.get(); // The received packet id
+            if (id != ID) {
+                throw new IOException("Invalid packet ID (0x%02X), expected 0x1C.".formatted(id));
+            }
+            pingTime = buffer.getLong();
+            serverGuid = buffer.getLong();
+            byte[] magic = new byte[BedrockUnconnectedPingPacket.MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, BedrockUnconnectedPingPacket.MAGIC)) {
+                throw new IOException("Invalid offline message magic.");
+            }
+            // Read the server ID string, prefixed with its length (unsigned short)
+            int length = buffer.getShort() & 0xFFFF;
+            if (length > buffer.remaining()) {
+                throw new IOException("Invalid server ID length.");
             }
-            this.response = response;
+            response = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+            buffer.position(buffer.position() + length);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Server returned a truncated pong.", ex);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,13 @@
 package cc.restfulmc.api.common.packet.impl.java.tcp;
 
+import cc.restfulmc.api.common.packet.ServerboundPacket;
 import cc.restfulmc.api.common.packet.TCPPacket;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.ToString;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This packet is sent by the client to the server to set
@@ -18,7 +17,7 @@ import java.io.IOException;
  * @see <a href="https://wiki.vg/Protocol#Handshake">Protocol Docs</a>
  */
 @AllArgsConstructor @ToString
-public final class JavaHandshakingInSetProtocolPacket extends TCPPacket {
+public final class JavaHandshakingInSetProtocolPacket extends TCPPacket implements ServerboundPacket {
     private static final byte ID = 0x00; // The ID of the packet
     private static final int STATUS_HANDSHAKE = 1; // The status handshake ID
 
@@ -38,27 +37,39 @@ public final class JavaHandshakingInSetProtocolPacket extends TCPPacket {
     private final int protocolVersion;
 
     /**
-     * Process this packet.
+     * Get the maximum amount of bytes
+     * this packet can be written as.
      *
-     * @param inputStream  the input stream to read from
-     * @param outputStream the output stream to write to
-     * @throws IOException if an I/O error occurs
+     * @return the maximum size of this packet
      */
     @Override
-    public void process(@NonNull DataInputStream inputStream, @NonNull DataOutputStream outputStream) throws IOException {
-        try (ByteArrayOutputStream handshakeBytes = new ByteArrayOutputStream();
-             DataOutputStream handshake = new DataOutputStream(handshakeBytes)
-        ) {
-            handshake.writeByte(ID); // Write the ID of the packet
-            writeVarInt(handshake, protocolVersion); // Write the protocol version
-            writeVarInt(handshake, hostname.length()); // Write the length of the hostname
-            handshake.writeBytes(hostname); // Write the hostname
-            handshake.writeShort(port); // Write the port
-            writeVarInt(handshake, STATUS_HANDSHAKE); // Write the status handshake ID
+    public int getMaxSize() {
+        int length = getLength();
+        return varIntSize(length) + length;
+    }
+
+    /**
+     * Write this packet to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void write(@NonNull ByteBuffer buffer) {
+        writeVarInt(buffer, getLength()); // Write the length of the packet
+        buffer.put(ID); // Write the ID of the packet
+        writeVarInt(buffer, protocolVersion); // Write the protocol version
+        writeString(buffer, hostname); // Write the hostname
+        buffer.putShort((short) port); // Write the port
+        writeVarInt(buffer, STATUS_HANDSHAKE); // Write the status handshake ID
+    }
 
-            // Write the handshake bytes to the output stream
-            writeVarInt(outputStream, handshakeBytes.size());
-            outputStream.write(handshakeBytes.toByteArray());
-        }
+    /**
+     * Get the length of this packet, excluding its length prefix.
+     *
+     * @return the length of this packet
+     */
+    private int getLength() {
+        int hostnameLength = hostname.getBytes(StandardCharsets.UTF_8).length;
+        return 1 + varIntSize(protocolVersion) + varIntSize(hostnameLength) + hostnameLength + 2 + varIntSize(STATUS_HANDSHAKE);
     }
-}
\ No newline at end of file
+}
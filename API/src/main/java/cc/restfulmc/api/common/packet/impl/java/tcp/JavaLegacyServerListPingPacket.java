@@ -1,13 +1,14 @@
 package cc.restfulmc.api.common.packet.impl.java.tcp;
 
+import cc.restfulmc.api.common.packet.ClientboundPacket;
+import cc.restfulmc.api.common.packet.ServerboundPacket;
 import cc.restfulmc.api.common.packet.TCPPacket;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.ToString;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -20,8 +21,8 @@ import java.nio.charset.StandardCharsets;
  * @see <a href="https://minecraft.wiki/w/Java_Edition_protocol/Server_List_Ping#Beta_1.8_to_1.3">Protocol Docs</a>
  */
 @Getter @ToString
-public final class JavaLegacyServerListPingPacket extends TCPPacket {
-    private static final int KICK_PACKET_ID = 0xFF;
+public final class JavaLegacyServerListPingPacket extends TCPPacket implements ServerboundPacket, ClientboundPacket {
+    public static final int KICK_PACKET_ID = 0xFF; // The ID of the kick packet
 
     /**
      * The ping version from the server (-1 if using old format).
@@ -54,35 +55,73 @@ public final class JavaLegacyServerListPingPacket extends TCPPacket {
     private int maxPlayers = -1;
 
     /**
-     * Process this packet.
+     * Get the maximum amount of bytes
+     * this packet can be written as.
      *
-     * @param inputStream  the input stream to read from
-     * @param outputStream the output stream to write to
-     * @throws IOException if an I/O error occurs
+     * @return the maximum size of this packet
      */
     @Override
-    public void process(@NonNull DataInputStream inputStream, @NonNull DataOutputStream outputStream) throws IOException {
+    public int getMaxSize() {
+        return 2;
+    }
+
+    /**
+     * Write this packet to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void write(@NonNull ByteBuffer buffer) {
         // Send the legacy ping request (0xFE 0x01 for 1.4-1.5 compatibility)
-        outputStream.write(new byte[] { (byte) 0xFE, (byte) 0x01 });
-        outputStream.flush();
+        buffer.put((byte) 0xFE);
+        buffer.put((byte) 0x01);
+    }
+
+    /**
+     * Read the kick response from the given buffer.
+     *
+     * @param buffer the buffer to read from
+     * @throws IOException if the response is invalid
+     */
+    @Override
+    public void read(@NonNull ByteBuffer buffer) throws IOException {
+        readResponse(readKickMessage(buffer));
+    }
 
+    /**
+     * Read the message of the kick packet in the given buffer.
+     *
+     * @param buffer the buffer to read from
+     * @return the kick message
+     * @throws IOException if the kick packet is invalid
+     */
+    @NonNull
+    public static String readKickMessage(@NonNull ByteBuffer buffer) throws IOException {
         // Read the kick packet ID
-        int packetId = inputStream.readUnsignedByte();
+        int packetId = buffer.get() & 0xFF;
         if (packetId != KICK_PACKET_ID) {
             throw new IOException("Invalid packet ID (0x" + Integer.toHexString(packetId) + "), expected 0xFF.");
         }
 
         // Read the string length (in UTF-16 code units) as a short
-        int length = inputStream.readUnsignedShort();
-        if (length == 0) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == 0 || length * 2 > buffer.remaining()) {
             throw new IOException("Invalid string length.");
         }
 
-        // Read the response bytes (2 bytes per UTF-16 code unit)
-        byte[] data = new byte[length * 2];
-        inputStream.readFully(data);
-        String response = new String(data, StandardCharsets.UTF_16BE);
+        // Decode the response (2 bytes per UTF-16 code unit)
+        ByteBuffer data = buffer.slice(buffer.position(), length * 2);
+        buffer.position(buffer.position() + length * 2);
+        return StandardCharsets.UTF_16BE.decode(data).toString();
+    }
 
+    /**
+     * Read the decoded kick response from the server.
+     *
+     * @param response the decoded kick response
+     * @throws IOException if the response is in an unknown format
+     */
+    public void readResponse(@NonNull String response) throws IOException {
         // Check which format the response is in
         if (response.startsWith("§")) {
             // 1.4+ format: §1\0protocolVersion\0gameVersion\0motd\0playersOnline\0maxPlayers
@@ -104,4 +143,15 @@ public final class JavaLegacyServerListPingPacket extends TCPPacket {
             maxPlayers = Integer.parseInt(parts[2]);
         }
     }
+
+    /**
+     * Check if the given kick response is a 1.4+
+     * status response, rather than a regular kick.
+     *
+     * @param response the decoded kick response
+     * @return whether the response is a status response
+     */
+    public static boolean isStatusResponse(@NonNull String response) {
+        return response.startsWith("§1\0");
+    }
 }
@@ -1,12 +1,18 @@
 package cc.restfulmc.api.common.packet.impl.java.tcp;
 
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.packet.ClientboundPacket;
+import cc.restfulmc.api.common.packet.ServerboundPacket;
 import cc.restfulmc.api.common.packet.TCPPacket;
+import cc.restfulmc.api.model.token.server.JavaServerStatusToken;
+import com.google.gson.stream.JsonReader;
 import lombok.Getter;
 import lombok.NonNull;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This packet is sent by the client to the server to request the
@@ -17,46 +23,64 @@ import java.io.IOException;
  * @see <a href="https://wiki.vg/Protocol#Status_Request">Protocol Docs</a>
  */
 @Getter
-public final class JavaStatusInStartPacket extends TCPPacket {
+public final class JavaStatusInStartPacket extends TCPPacket implements ServerboundPacket, ClientboundPacket {
     private static final byte ID = 0x00; // The ID of the packet
 
     /**
-     * The response json from the server, null if none.
+     * The status response from the server, null if none.
      */
-    private String response;
+    private JavaServerStatusToken response;
 
     /**
-     * Process this packet.
+     * Get the maximum amount of bytes
+     * this packet can be written as.
      *
-     * @param inputStream  the input stream to read from
-     * @param outputStream the output stream to write to
-     * @throws IOException if an I/O error occurs
+     * @return the maximum size of this packet
      */
     @Override
-    public void process(@NonNull DataInputStream inputStream, @NonNull DataOutputStream outputStream) throws IOException {
-        // Send the status request
-        outputStream.writeByte(0x01); // Size of packet
-        outputStream.writeByte(ID);
+    public int getMaxSize() {
+        return 2;
+    }
+
+    /**
+     * Write this packet to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void write(@NonNull ByteBuffer buffer) {
+        buffer.put((byte) 0x01); // Size of packet
+        buffer.put(ID);
+    }
 
-        // Read the status response
-        readVarInt(inputStream); // Size of the response
-        int id = readVarInt(inputStream);
-        if (id == -1) { // The stream was prematurely ended
-            throw new IOException("Server prematurely ended stream.");
-        } else if (id != ID) { // Invalid packet ID
+    /**
+     * Read the status response from the given
+     * buffer, holding the whole response frame
+     * (excluding its length prefix).
+     * <p>
+     * The json is parsed straight out of the
+     * buffer, without copying it into a string.
+     * </p>
+     *
+     * @param buffer the buffer to read from
+     * @throws IOException if the response is invalid
+     */
+    @Override
+    public void read(@NonNull ByteBuffer buffer) throws IOException {
+        if (readVarInt(buffer) != ID) { // Invalid packet ID
             throw new IOException("Server returned invalid packet ID.");
         }
-
-        int length = readVarInt(inputStream); // Length of the response
-        if (length == -1) { // The stream was prematurely ended
-            throw new IOException("Server prematurely ended stream.");
-        } else if (length == 0) {
+        int length = readVarInt(buffer); // Length of the response
+        if (length <= 0 || length > buffer.remaining()) {
+            throw new IOException("Server returned unexpected value.");
+        }
+        ByteBuffer json = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(asInputStream(json), StandardCharsets.UTF_8))) {
+            response = Constants.GSON.fromJson(reader, JavaServerStatusToken.class);
+        }
+        if (response == null) { // Empty json
             throw new IOException("Server returned unexpected value.");
         }
-
-        // Get the json response
-        byte[] data = new byte[length];
-        inputStream.readFully(data);
-        response = new String(data);
     }
-}
\ No newline at end of file
+}
@@ -16,13 +16,25 @@ public class JsonWebException extends RuntimeException {
      */
     private final int statusCode;
 
+    /**
+     * The time (in millis) the server asked
+     * to wait before retrying, -1 if it didn't.
+     */
+    private final long retryAfter;
+
     protected JsonWebException(int statusCode, @NonNull String message) {
         super(message);
         this.statusCode = statusCode;
+        retryAfter = -1L;
     }
 
     protected JsonWebException(int statusCode, @NonNull Throwable cause) {
+        this(statusCode, -1L, cause);
+    }
+
+    protected JsonWebException(int statusCode, long retryAfter, @NonNull Throwable cause) {
         super(cause);
         this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
     }
 }
\ No newline at end of file
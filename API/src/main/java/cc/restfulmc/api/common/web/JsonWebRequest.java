@@ -5,17 +5,23 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Json web request.
@@ -24,8 +30,6 @@ import java.util.Map;
  */
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE) @Getter
 public final class JsonWebRequest {
-    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
-
     /**
      * The endpoint to make the request to.
      */
@@ -41,6 +45,11 @@ public final class JsonWebRequest {
      */
     private final Map<String, String> headers = Collections.synchronizedMap(new HashMap<>());
 
+    /**
+     * The body to send with the request, serialized as Json, null if none.
+     */
+    private Object body;
+
     /**
      * Make a new web request.
      *
@@ -66,6 +75,18 @@ public final class JsonWebRequest {
         return this;
     }
 
+    /**
+     * Set the body of this request.
+     *
+     * @param body the body, serialized as Json
+     * @return the request
+     */
+    @NonNull
+    public JsonWebRequest body(@NonNull Object body) {
+        this.body = body;
+        return this;
+    }
+
     /**
      * Execute this request.
      *
@@ -76,31 +97,65 @@ public final class JsonWebRequest {
      */
     public <T> T execute(@NonNull Class<T> responseType) throws JsonWebException {
         // Build the request
-        HttpRequest.Builder request = HttpRequest.newBuilder()
-                .uri(URI.create(endpoint))
-                .method(method.name(), HttpRequest.BodyPublishers.noBody());
+        HttpRequest.Builder request = WebClient.newRequest(endpoint)
+                .method(method.name(), body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(Constants.GSON.toJson(body)));
         // Append headers
-        headers.put("User-Agent", "RESTfulMC");
         headers.put("Content-Type", "application/json");
         for (Map.Entry<String, String> header : headers.entrySet()) {
-            request.header(header.getKey(), header.getValue());
+            request.setHeader(header.getKey(), header.getValue());
         }
 
-        // Send the request and get the response
+        // Send the request, decoding the response as it's read
         int status = -1; // The response status code
         try {
-            HttpResponse<String> response = HTTP_CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            WebClient.Response<T> response = WebClient.send(request.build(), stream -> {
+                try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                    return Constants.GSON.fromJson(reader, responseType);
+                }
+            });
             status = response.statusCode(); // Set the response status
             if (status != HttpStatus.OK.value()) { // Status code is not OK, raise an exception
-                throw new IOException("Failed to make a %s request to %s: %s".formatted(method.name(), endpoint, status));
+                throw new JsonWebException(status, getRetryAfter(response.headers()),
+                        new IOException("Failed to make a %s request to %s: %s".formatted(method.name(), endpoint, status))
+                );
             }
             // Return with the response as the type
-            return Constants.GSON.fromJson(response.body(), responseType);
+            return response.body();
         } catch (Exception ex) {
+            if (ex instanceof InterruptedException) { // Preserve the interrupt
+                Thread.currentThread().interrupt();
+            }
             if (!(ex instanceof JsonWebException)) {
                 throw new JsonWebException(status, ex);
             }
             throw (JsonWebException) ex;
         }
     }
+
+    /**
+     * Get the time the server asked
+     * to wait before retrying, if any.
+     *
+     * @param headers the response headers to get from
+     * @return the time (in millis) to wait, -1 if none
+     */
+    private static long getRetryAfter(@NonNull java.net.http.HttpHeaders headers) {
+        Optional<String> header = headers.firstValue(HttpHeaders.RETRY_AFTER);
+        if (header.isEmpty()) {
+            return -1L;
+        }
+        String value = header.get().trim();
+        try { // Delay in seconds
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(value), 0L));
+        } catch (NumberFormatException ignored) {
+            // Not a delay, try it as a date
+        }
+        try {
+            long until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(until - System.currentTimeMillis(), 0L);
+        } catch (DateTimeParseException ex) {
+            return -1L;
+        }
+    }
 }
\ No newline at end of file
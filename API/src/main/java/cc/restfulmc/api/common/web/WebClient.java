@@ -0,0 +1,165 @@
+package cc.restfulmc.api.common.web;
+
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.concurrent.Deadline;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The shared layer for all outbound HTTP requests.
+ * <p>
+ * Requests go through {@link Constants#HTTP_CLIENT}, which
+ * multiplexes them over HTTP/2 where the host supports it.
+ * The number of requests in flight to a host is capped, every
+ * request has a deadline covering the whole exchange, including
+ * reading the body, and responses are gzip compressed where the
+ * host supports it. Bodies are read straight from the response
+ * stream, so they're never buffered whole before being decoded.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class WebClient {
+    /**
+     * The maximum time a request can take, from
+     * waiting for a slot to reading the last byte.
+     */
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10L);
+
+    private static final int MAX_REQUESTS_PER_HOST = 32; // The maximum amount of requests in flight to a host
+    private static final String USER_AGENT = "RESTfulMC";
+
+    /**
+     * The slots for requests in flight, mapped by host.
+     */
+    private static final Map<String, Semaphore> HOST_SLOTS = new ConcurrentHashMap<>();
+
+    /**
+     * Start building a request to the given url,
+     * with the headers every request is sent with.
+     *
+     * @param url the url to request
+     * @return the request builder
+     */
+    @NonNull
+    public static HttpRequest.Builder newRequest(@NonNull String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Encoding", "gzip");
+    }
+
+    /**
+     * Send the given request, and read its body
+     * with the given reader if it was successful.
+     *
+     * @param request the request to send
+     * @param reader  the reader for a successful response body
+     * @return the response
+     * @param <T> the type of body
+     * @throws IOException if the request fails, or doesn't complete before its deadline
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @NonNull
+    public static <T> Response<T> send(@NonNull HttpRequest request, @NonNull BodyReader<T> reader) throws IOException, InterruptedException {
+        Deadline deadline = Deadline.in(request.timeout().orElse(REQUEST_TIMEOUT).toMillis());
+        String host = request.uri().getHost();
+        Semaphore slots = HOST_SLOTS.computeIfAbsent(host, ignored -> new Semaphore(MAX_REQUESTS_PER_HOST));
+        if (!slots.tryAcquire(deadline.getRemaining(), TimeUnit.MILLISECONDS)) {
+            throw new HttpTimeoutException("Timed out waiting for a slot to " + host);
+        }
+        try {
+            HttpResponse<InputStream> response = Constants.HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            InputStream body = response.body();
+
+            // Close the body once the deadline passes, failing a stalled read
+            CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> closeQuietly(body),
+                    CompletableFuture.delayedExecutor(deadline.getRemaining(), TimeUnit.MILLISECONDS, Constants.VIRTUAL_EXECUTOR)
+            );
+            try (InputStream decoded = decode(response)) {
+                int status = response.statusCode();
+                T value = status >= 200 && status < 300 ? reader.read(decoded) : null;
+                return new Response<>(status, response.headers(), value);
+            } catch (IOException | RuntimeException ex) { // Decoders may wrap the failed read
+                if (deadline.isExpired()) {
+                    HttpTimeoutException timeout = new HttpTimeoutException("Timed out reading the response from " + host);
+                    timeout.initCause(ex);
+                    throw timeout;
+                }
+                throw ex;
+            } finally {
+                watchdog.cancel(false);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Get the body of the given response,
+     * decompressing it if it was compressed.
+     *
+     * @param response the response
+     * @return the body
+     * @throws IOException if the body can't be decompressed
+     */
+    @NonNull
+    private static InputStream decode(@NonNull HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        return encoding.equalsIgnoreCase("gzip") ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    /**
+     * Close the given stream, ignoring any errors.
+     *
+     * @param stream the stream to close
+     */
+    private static void closeQuietly(@NonNull InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // We're giving up on the stream anyway
+        }
+    }
+
+    /**
+     * A reader for a response body.
+     *
+     * @param <T> the type of body
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        /**
+         * Read the given response body.
+         *
+         * @param body the body stream
+         * @return the read body
+         * @throws IOException if the body can't be read
+         */
+        T read(@NonNull InputStream body) throws IOException;
+    }
+
+    /**
+     * A response to a request.
+     *
+     * @param statusCode the status code of the response
+     * @param headers    the headers of the response
+     * @param body       the read body, null if the request was unsuccessful
+     * @param <T> the type of body
+     */
+    public record Response<T>(int statusCode, @NonNull HttpHeaders headers, T body) { }
+}
@@ -0,0 +1,129 @@
+package cc.restfulmc.api.config;
+
+import cc.restfulmc.api.common.MojangServer;
+import cc.restfulmc.api.common.mock.MockMojangServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * The configuration for the {@link MojangServer}s we talk to.
+ * <p>
+ * The endpoint and rate limit of each server can be overridden,
+ * and a {@link MockMojangServer} can be started in place of the
+ * session server, API, and textures server, to test offline.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Configuration
+@Log4j2(topic = "Mojang Config")
+public class MojangConfig {
+    /**
+     * Whether to serve the session server, API,
+     * and textures server from a mock server.
+     */
+    @Value("${mojang.mock.enabled:false}")
+    private boolean mockEnabled;
+
+    /**
+     * The port to run the mock server on, 0 for any.
+     */
+    @Value("${mojang.mock.port:7600}")
+    private int mockPort;
+
+    /**
+     * The amount of players the mock server knows.
+     */
+    @Value("${mojang.mock.players:10000}")
+    private int mockPlayers;
+
+    /**
+     * The time (in millis) the mock server waits before answering.
+     */
+    @Value("${mojang.mock.latency:0}")
+    private long mockLatency;
+
+    /**
+     * The most time (in millis) randomly added to the latency.
+     */
+    @Value("${mojang.mock.latencyJitter:0}")
+    private long mockLatencyJitter;
+
+    /**
+     * The ratio of requests the mock server fails.
+     */
+    @Value("${mojang.mock.errorRate:0}")
+    private double mockErrorRate;
+
+    /**
+     * The ratio of requests the mock server rate limits.
+     */
+    @Value("${mojang.mock.rateLimitRate:0}")
+    private double mockRateLimitRate;
+
+    /**
+     * The environment to read server overrides from.
+     */
+    @NonNull private final Environment environment;
+
+    /**
+     * The running mock server, null if disabled.
+     */
+    private MockMojangServer mockServer;
+
+    @Autowired
+    public MojangConfig(@NonNull Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct @SneakyThrows
+    public void onInitialize() {
+        if (mockEnabled) {
+            mockServer = new MockMojangServer(MockMojangServer.Settings.builder()
+                    .port(mockPort)
+                    .players(mockPlayers)
+                    .latency(mockLatency)
+                    .latencyJitter(mockLatencyJitter)
+                    .errorRate(mockErrorRate)
+                    .rateLimitRate(mockRateLimitRate)
+                    .build());
+            mockServer.start();
+            for (MojangServer server : new MojangServer[] { MojangServer.SESSION, MojangServer.API, MojangServer.TEXTURES }) {
+                server.setEndpoint(mockServer.getUrl());
+            }
+        }
+
+        // Apply the overrides, these win over the mock server
+        for (MojangServer server : MojangServer.values()) {
+            String key = server.name().toLowerCase();
+            String endpoint = environment.getProperty("mojang.endpoints." + key);
+            if (endpoint != null && !endpoint.isBlank()) {
+                server.setEndpoint(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+            }
+            Integer requestsPerMinute = environment.getProperty("mojang.requestsPerMinute." + key, Integer.class);
+            if (requestsPerMinute != null && requestsPerMinute > 0) {
+                server.setRequestsPerMinute(requestsPerMinute);
+            }
+        }
+        for (MojangServer server : MojangServer.values()) {
+            log.debug("{} is at {} ({} requests/min)", server.getName(), server.getEndpoint(), server.getRequestsPerMinute());
+        }
+    }
+
+    /**
+     * Cleanup when the app is destroyed.
+     */
+    @PreDestroy
+    public void cleanup() {
+        if (mockServer != null) {
+            mockServer.stop();
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package cc.restfulmc.api.controller;
 
+import cc.restfulmc.api.common.cache.TieredCache;
+import cc.restfulmc.api.service.BootstrapService;
+import cc.restfulmc.api.service.CacheService;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -17,8 +24,55 @@ import java.util.Map;
 @RequestMapping(value = "/", produces = MediaType.APPLICATION_JSON_VALUE)
 @Tag(name = "App Controller", description = "The controller for general app related routes.")
 public final class AppController {
+    @NonNull private final BootstrapService bootstrapService;
+    @NonNull private final CacheService cacheService;
+
+    @Autowired
+    public AppController(@NonNull BootstrapService bootstrapService, @NonNull CacheService cacheService) {
+        this.bootstrapService = bootstrapService;
+        this.cacheService = cacheService;
+    }
+
+    /**
+     * Get the health of the app.
+     * <p>
+     * This responds with a 503 until every critical
+     * startup task has completed, so the app isn't
+     * sent traffic before it's able to serve it.
+     * </p>
+     *
+     * @return the health response
+     */
     @GetMapping("/health") @ResponseBody
     public ResponseEntity<Map<String, Object>> getStatus() {
-        return ResponseEntity.ok(Map.of("status", "OK"));
+        BootstrapService.Readiness readiness = bootstrapService.getReadiness();
+        if (readiness == BootstrapService.Readiness.READY) {
+            return ResponseEntity.ok(Map.of("status", "OK"));
+        }
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        for (BootstrapService.Task task : bootstrapService.getTasks().values()) {
+            tasks.put(task.getName(), Map.of(
+                    "state", task.getState(),
+                    "critical", task.isCritical(),
+                    "attempts", task.getAttempts(),
+                    "duration", task.getDuration()
+            ));
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "status", readiness,
+                "tasks", tasks
+        ));
+    }
+
+    /**
+     * Get the statistics of each cache, with
+     * the hit rate of the in-process tier
+     * and of the Redis tier behind it.
+     *
+     * @return the cache statistics, mapped by cache name
+     */
+    @GetMapping("/caches") @ResponseBody
+    public ResponseEntity<Map<String, TieredCache.Stats>> getCaches() {
+        return ResponseEntity.ok(cacheService.getStats());
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package cc.restfulmc.api.controller;
 
+import cc.restfulmc.api.common.LatencyHistory;
 import cc.restfulmc.api.common.MojangServer;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.service.MojangService;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,4 +61,33 @@ public final class MojangController {
         }
         return ResponseEntity.ok(Map.of("servers", servers));
     }
+
+    /**
+     * A GET route to get the latency history of Mojang servers.
+     * <p>
+     * Percentiles are of the probes that reached
+     * the server, and are -1 if none have.
+     * </p>
+     *
+     * @return the history response
+     */
+    @GetMapping("/status/history") @ResponseBody
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getStatusHistory() {
+        List<Map<String, Object>> servers = new ArrayList<>();
+        for (Map.Entry<MojangServer, LatencyHistory.Snapshot> entry : mojangService.getMojangServerHistories().entrySet()) {
+            MojangServer server = entry.getKey();
+            LatencyHistory.Snapshot history = entry.getValue();
+
+            Map<String, Object> serverHistory = new LinkedHashMap<>();
+            serverHistory.put("name", server.getName());
+            serverHistory.put("endpoint", server.getEndpoint());
+            serverHistory.put("p50", history.p50());
+            serverHistory.put("p95", history.p95());
+            serverHistory.put("p99", history.p99());
+            serverHistory.put("availability", history.availability());
+            serverHistory.put("samples", history.samples());
+            servers.add(serverHistory);
+        }
+        return ResponseEntity.ok(Map.of("servers", servers));
+    }
 }
\ No newline at end of file
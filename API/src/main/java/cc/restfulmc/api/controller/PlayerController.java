@@ -1,5 +1,6 @@
 package cc.restfulmc.api.controller;
 
+import cc.restfulmc.api.exception.ExceptionControllerAdvice;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.exception.impl.MojangRateLimitException;
 import cc.restfulmc.api.exception.impl.ResourceNotFoundException;
@@ -19,6 +20,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -62,6 +68,40 @@ public final class PlayerController {
                 .body(playerService.getPlayer(query, signed));
     }
 
+    /**
+     * A POST route to get many players by their usernames or UUIDs.
+     * <p>
+     * Players are returned in the order they were
+     * requested in. A failed lookup is returned as an
+     * object holding the query and its error.
+     * </p>
+     *
+     * @param queries the player usernames or UUIDs to get
+     * @param signed  whether the profiles are signed
+     * @return the players response
+     * @throws BadRequestException if the batch size is invalid
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE) @ResponseBody
+    public ResponseEntity<List<Object>> getPlayers(
+            @Parameter(description = "The player usernames or UUIDs to get") @RequestBody @NonNull List<String> queries,
+            @Parameter(description = "Whether the profiles are signed by Mojang") @RequestParam(required = false) boolean signed
+    ) throws BadRequestException {
+        List<CompletableFuture<CachedPlayer>> lookups = playerService.getPlayers(queries, signed);
+        List<Object> players = new ArrayList<>(lookups.size());
+        for (int i = 0; i < lookups.size(); i++) {
+            try {
+                players.add(lookups.get(i).join());
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+                players.add(Map.of(
+                        "query", queries.get(i),
+                        "error", ExceptionControllerAdvice.toErrorResponse(cause instanceof Exception exception ? exception : ex)
+                ));
+            }
+        }
+        return ResponseEntity.ok(players);
+    }
+
     /**
      * Get the raw skin texture for a
      * player by their username or UUID.
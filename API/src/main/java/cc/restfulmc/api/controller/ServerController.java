@@ -1,5 +1,6 @@
 package cc.restfulmc.api.controller;
 
+import cc.restfulmc.api.exception.ExceptionControllerAdvice;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.exception.impl.ResourceNotFoundException;
 import cc.restfulmc.api.model.server.MinecraftServer;
@@ -17,8 +18,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The controller for handling
@@ -31,6 +36,8 @@ import java.util.Map;
 @Log4j2(topic = "Server Controller")
 @Tag(name = "Server Controller", description = "The controller for handling server related requests.")
 public final class ServerController {
+    private static final int MAX_BLOCKED_BATCH_SIZE = 10_000; // The maximum amount of hostnames in a blocked check
+
     /**
      * The Server service to use.
      */
@@ -68,6 +75,43 @@ public final class ServerController {
         return ResponseEntity.ofNullable(serverService.getMinecraftServer(platform, hostname));
     }
 
+    /**
+     * Get many Minecraft servers by their platform and hostnames.
+     * <p>
+     * Servers are streamed back as newline-delimited JSON
+     * in the order their lookups finish, not the order they
+     * were requested in. A failed lookup is streamed as an
+     * object holding the hostname and its error.
+     * </p>
+     *
+     * @param platform  the platform of the servers
+     * @param hostnames the hostnames of the servers
+     * @return the emitter streaming the servers
+     * @throws BadRequestException if the platform or batch size is invalid
+     */
+    @PostMapping(value = "/{platform}/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter getServers(
+            @Parameter(
+                    description = "The platform of the servers",
+                    schema = @Schema(implementation = ServerPlatform.class),
+                    example = "java"
+            ) @PathVariable @NonNull String platform,
+            @Parameter(description = "The server hostnames to lookup (Append :<port> for port)") @RequestBody @NonNull List<String> hostnames
+    ) throws BadRequestException {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(serverService.getBatchTimeout(hostnames.size()));
+        CompletableFuture<Void> lookups = serverService.getMinecraftServers(platform, hostnames,
+                (hostname, server) -> emit(emitter, server),
+                (hostname, ex) -> emit(emitter, Map.of(
+                        "hostname", hostname,
+                        "error", ExceptionControllerAdvice.toErrorResponse(ex)
+                ))
+        );
+        lookups.whenComplete((ignored, ex) -> emitter.complete());
+        emitter.onTimeout(() -> lookups.cancel(false)); // Stop the remaining lookups
+        emitter.onError(ex -> lookups.cancel(false));
+        return emitter;
+    }
+
     /**
      * Check if the server with the
      * given hostname is blocked by Mojang.
@@ -84,6 +128,26 @@ public final class ServerController {
         ));
     }
 
+    /**
+     * Check which of the servers with the
+     * given hostnames are blocked by Mojang.
+     *
+     * @param hostnames the server hostnames to check
+     * @return whether each hostname is blocked
+     * @throws BadRequestException if the batch size is invalid
+     */
+    @PostMapping(value = "/blocked", consumes = MediaType.APPLICATION_JSON_VALUE) @ResponseBody
+    public ResponseEntity<Map<String, Object>> areServersBlocked(
+            @Parameter(description = "The hostnames of the servers") @RequestBody @NonNull List<String> hostnames
+    ) throws BadRequestException {
+        if (hostnames.isEmpty() || hostnames.size() > MAX_BLOCKED_BATCH_SIZE) { // Invalid batch size
+            throw new BadRequestException("Invalid batch size. Must be between 1 and " + MAX_BLOCKED_BATCH_SIZE);
+        }
+        return ResponseEntity.ok(Map.of(
+                "blocked", mojangService.areServersBlocked(hostnames)
+        ));
+    }
+
     /**
      * Get the server icon of a Java
      * Minecraft server by hostname.
@@ -143,4 +207,20 @@ public final class ServerController {
         MinecraftServer server = serverService.getMinecraftServer(platform, hostname).getValue();
         return ResponseEntity.ok(server.getMotd().generateHtmlPreview(server));
     }
-}
\ No newline at end of file
+
+    /**
+     * Emit the given object to the
+     * emitter as a single line of JSON.
+     *
+     * @param emitter the emitter to emit to
+     * @param object  the object to emit
+     */
+    private static void emit(@NonNull ResponseBodyEmitter emitter, @NonNull Object object) {
+        try { // Only ever called from the batch's single writer, so lines never interleave
+            emitter.send(object, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+        } catch (IOException | IllegalStateException ignored) {
+            // The client has gone away (or timed out), the lookups already made will still be cached
+        }
+    }
+}
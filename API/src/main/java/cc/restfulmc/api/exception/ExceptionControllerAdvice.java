@@ -24,6 +24,18 @@ public final class ExceptionControllerAdvice {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleException(@NonNull Exception ex) {
+        ErrorResponse response = toErrorResponse(ex);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    /**
+     * Build the error response for a raised exception.
+     *
+     * @param ex the raised exception
+     * @return the error response
+     */
+    @NonNull
+    public static ErrorResponse toErrorResponse(@NonNull Exception ex) {
         HttpStatus status = null; // Get the HTTP status
         if (ex instanceof NoResourceFoundException) { // Not found
             status = HttpStatus.NOT_FOUND;
@@ -44,6 +56,6 @@ public final class ExceptionControllerAdvice {
         if (status == null) { // Fallback to 500
             status = HttpStatus.INTERNAL_SERVER_ERROR;
         }
-        return new ResponseEntity<>(new ErrorResponse(status, message), status);
+        return new ErrorResponse(status, message);
     }
 }
\ No newline at end of file
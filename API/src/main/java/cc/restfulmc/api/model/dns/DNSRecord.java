@@ -28,6 +28,6 @@ public abstract class DNSRecord {
      * Types of a record.
      */
     public enum Type {
-        A, SRV
+        A, AAAA, SRV
     }
 }
\ No newline at end of file
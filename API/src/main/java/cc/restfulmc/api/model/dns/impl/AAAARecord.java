@@ -0,0 +1,25 @@
+package cc.restfulmc.api.model.dns.impl;
+
+import cc.restfulmc.api.model.dns.DNSRecord;
+import lombok.*;
+
+import java.net.InetAddress;
+
+/**
+ * An AAAA record implementation.
+ *
+ * @author Braydon
+ */
+@NoArgsConstructor @Setter @Getter @ToString(callSuper = true)
+public final class AAAARecord extends DNSRecord {
+    /**
+     * The address of this record, null if unresolved.
+     */
+    private String address;
+
+    public AAAARecord(@NonNull org.xbill.DNS.AAAARecord bootstrap) {
+        super(Type.AAAA, bootstrap.getName().toString(), bootstrap.getTTL());
+        InetAddress address = bootstrap.getAddress();
+        this.address = address == null ? null : address.getHostAddress();
+    }
+}
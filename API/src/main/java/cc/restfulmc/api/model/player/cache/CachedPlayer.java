@@ -23,7 +23,7 @@ import java.util.UUID;
  */
 @Setter @Getter
 @ToString(callSuper = true)
-@RedisHash(value = "player", timeToLive = 60L * 60L) // 1 hour (in seconds)
+@RedisHash(value = "player", timeToLive = 6L * 60L * 60L) // 6 hours (in seconds), served stale after 1 hour
 public final class CachedPlayer extends Player implements Serializable {
     /**
      * The id of this cache element.
@@ -0,0 +1,21 @@
+package cc.restfulmc.api.model.player.cache;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.redis.core.RedisHash;
+
+/**
+ * A cache of a username that
+ * doesn't belong to any player.
+ *
+ * @author Braydon
+ */
+@AllArgsConstructor @Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true) @ToString
+@RedisHash(value = "unknownPlayerName", timeToLive = 5L * 60L) // 5 minutes (in seconds)
+public final class CachedUnknownPlayerName {
+    /**
+     * The username.
+     */
+    @Id @NonNull private String username;
+}
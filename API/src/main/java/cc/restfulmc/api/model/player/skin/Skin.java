@@ -1,5 +1,6 @@
 package cc.restfulmc.api.model.player.skin;
 
+import cc.restfulmc.api.common.MojangServer;
 import cc.restfulmc.api.common.SkinUtils;
 import cc.restfulmc.api.config.AppConfig;
 import cc.restfulmc.api.model.player.Player;
@@ -27,7 +28,7 @@ import java.util.Map;
  */
 @Getter @ToString
 public final class Skin {
-    public static final Skin DEFAULT_STEVE = create("https://textures.minecraft.net/texture/60a5bd016b3c9a1b9272e4929e30827a67be4ebb219017adbbc4a4d22ebd5b1", Model.DEFAULT);
+    public static final Skin DEFAULT_STEVE = create(MojangServer.TEXTURES.getEndpoint() + "/texture/60a5bd016b3c9a1b9272e4929e30827a67be4ebb219017adbbc4a4d22ebd5b1", Model.DEFAULT);
 
     /**
      * The id of this skin.
@@ -0,0 +1,24 @@
+package cc.restfulmc.api.model.server;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The ASN and Geo location data
+ * shared by every address in a network.
+ *
+ * @author Braydon
+ */
+@AllArgsConstructor @Getter @ToString
+public final class NetworkData {
+    /**
+     * The ASN data of the network, null if unknown.
+     */
+    private final AsnData asn;
+
+    /**
+     * The Geo location of the network, null if unknown.
+     */
+    private final GeoLocation geo;
+}
@@ -13,7 +13,7 @@ import java.io.Serializable;
  * @author Braydon
  */
 @AllArgsConstructor @Setter @Getter @ToString
-@RedisHash(value = "server", timeToLive = 60L) // 1 minute (in seconds)
+@RedisHash(value = "server", timeToLive = 5L * 60L) // 5 minutes (in seconds), served stale after 1 minute
 public final class CachedMinecraftServer implements Serializable {
     /**
      * The id of this cache element.
@@ -0,0 +1,41 @@
+package cc.restfulmc.api.model.server.cache;
+
+import cc.restfulmc.api.model.server.MinecraftServer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.redis.core.RedisHash;
+
+import java.io.Serializable;
+
+/**
+ * A cache for a failed {@link MinecraftServer} lookup.
+ * <p>
+ * This lets repeat lookups of a server that's down (or
+ * doesn't exist) fail right away, rather than waiting
+ * on another ping that will most likely fail again.
+ * </p>
+ *
+ * @author Braydon
+ */
+@AllArgsConstructor @Getter @ToString
+@RedisHash(value = "serverFailure", timeToLive = 30L) // 30 seconds
+public final class CachedMinecraftServerFailure implements Serializable {
+    /**
+     * The id of this cache element, the
+     * same as the id of the server's cache.
+     */
+    @Id @NonNull private final String id;
+
+    /**
+     * Whether the server was not found, rather than the request being bad.
+     */
+    private final boolean notFound;
+
+    /**
+     * The message of the failure.
+     */
+    @NonNull private final String message;
+}
@@ -17,4 +17,9 @@ public final class MojangUsernameToUUIDToken {
      * The id of the username.
      */
     @NonNull private final String id;
+
+    /**
+     * The username, in its original case.
+     */
+    @NonNull private final String name;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package cc.restfulmc.api.model.token.server;
 
+import cc.restfulmc.api.common.packet.impl.java.tcp.JavaLegacyServerListPingPacket;
 import cc.restfulmc.api.model.server.java.JavaMinecraftServer;
 import cc.restfulmc.api.model.server.java.Version;
 import lombok.NonNull;
@@ -16,4 +17,19 @@ public final class LegacyJavaServerStatusToken extends GenericJavaServerStatusTo
     public LegacyJavaServerStatusToken(@NonNull Object description, @NonNull Players players, @NonNull Version version) {
         super(description, players, version);
     }
-}
\ No newline at end of file
+
+    /**
+     * Create a new legacy status token
+     * from the given legacy ping packet.
+     *
+     * @param legacyPingPacket the processed legacy ping packet
+     * @return the legacy status token
+     */
+    @NonNull
+    public static LegacyJavaServerStatusToken create(@NonNull JavaLegacyServerListPingPacket legacyPingPacket) {
+        Players players = new Players(legacyPingPacket.getOnlinePlayers(), legacyPingPacket.getMaxPlayers(), new Players.Sample[0]);
+        Version version = new Version(legacyPingPacket.getGameVersion(), null, legacyPingPacket.getProtocolVersion(),
+                new int[] { legacyPingPacket.getProtocolVersion() }, null);
+        return new LegacyJavaServerStatusToken(legacyPingPacket.getMotd(), players, version);
+    }
+}
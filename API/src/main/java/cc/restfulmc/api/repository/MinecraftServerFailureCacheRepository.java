@@ -0,0 +1,11 @@
+package cc.restfulmc.api.repository;
+
+import cc.restfulmc.api.model.server.cache.CachedMinecraftServerFailure;
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * A cache repository for {@link CachedMinecraftServerFailure}'s.
+ *
+ * @author Braydon
+ */
+public interface MinecraftServerFailureCacheRepository extends CrudRepository<CachedMinecraftServerFailure, String> { }
@@ -0,0 +1,12 @@
+package cc.restfulmc.api.repository;
+
+import cc.restfulmc.api.model.player.cache.CachedUnknownPlayerName;
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * A cache repository for usernames
+ * that don't belong to any player.
+ *
+ * @author Braydon
+ */
+public interface UnknownPlayerNameCacheRepository extends CrudRepository<CachedUnknownPlayerName, String> { }
@@ -0,0 +1,271 @@
+package cc.restfulmc.api.service;
+
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.font.FontManager;
+import cc.restfulmc.api.common.renderer.impl.server.ServerPreviewRenderer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A service for running the slow startup tasks of
+ * the app in parallel, and tracking their readiness.
+ * <p>
+ * Tasks are started as soon as they're submitted. The
+ * app is ready once it has started, and every critical
+ * task has completed. Optional tasks keep running in the
+ * background, and don't hold back the readiness of the app.
+ * </p>
+ * <p>
+ * A failed critical task is retried with an exponential
+ * backoff until it completes, so a dependency that's down
+ * at startup (e.g. S3) doesn't leave the app unready forever.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Service @Log4j2(topic = "Bootstrap")
+public final class BootstrapService {
+    private static final long INITIAL_RETRY_DELAY = 1000L; // The time (in millis) before the first retry of a critical task
+    private static final long MAX_RETRY_DELAY = 60_000L; // The longest time (in millis) between retries of a critical task
+
+    /**
+     * The submitted tasks, mapped by their name.
+     */
+    private final Map<String, Task> tasks = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * The unix timestamp the bootstrap was started at.
+     */
+    private final long started = System.currentTimeMillis();
+
+    /**
+     * Whether the app has finished starting.
+     */
+    private volatile boolean appStarted;
+
+    /**
+     * Whether the readiness of the app has been logged.
+     */
+    private boolean readyLogged;
+
+    @PostConstruct
+    public void onInitialize() {
+        // Load assets that aren't owned by a service
+        submit("Fonts", true, () -> FontManager.getInstance().load());
+        submit("Server preview assets", true, () -> ServerPreviewRenderer.INSTANCE.getClass());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onAppReady() {
+        appStarted = true;
+        logIfReady();
+    }
+
+    /**
+     * Submit a startup task, running it right away.
+     *
+     * @param name     the name of the task
+     * @param critical whether the app can't serve requests until the task completes
+     * @param task     the task to run
+     * @return the future of the task
+     */
+    @NonNull
+    public CompletableFuture<Void> submit(@NonNull String name, boolean critical, @NonNull Runnable task) {
+        Task submitted = new Task(name, critical, System.currentTimeMillis());
+        tasks.put(name, submitted);
+        return CompletableFuture.runAsync(() -> run(submitted, task), Constants.VIRTUAL_EXECUTOR).whenComplete((ignored, ex) -> {
+            submitted.complete(ex);
+            if (ex != null) {
+                log.error("Bootstrap task '{}' failed after {}ms:", name, submitted.getDuration(), ex);
+            } else {
+                log.info("Bootstrap task '{}' completed in {}ms", name, submitted.getDuration());
+            }
+            logIfReady();
+        });
+    }
+
+    /**
+     * Run the given task, retrying it with
+     * an exponential backoff if it's critical.
+     *
+     * @param submitted the submitted task
+     * @param task      the task to run
+     */
+    private void run(@NonNull Task submitted, @NonNull Runnable task) {
+        long delay = INITIAL_RETRY_DELAY;
+        while (true) {
+            submitted.attempt();
+            try {
+                task.run();
+                return;
+            } catch (RuntimeException ex) {
+                if (!submitted.isCritical()) {
+                    throw ex;
+                }
+                submitted.fail();
+                log.error("Critical bootstrap task '{}' failed (attempt {}), retrying in {}ms:", submitted.getName(), submitted.getAttempts(), delay, ex);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                delay = Math.min(delay * 2L, MAX_RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Get the current readiness of the app.
+     *
+     * @return the readiness
+     */
+    @NonNull
+    public Readiness getReadiness() {
+        if (!appStarted) {
+            return Readiness.STARTING;
+        }
+        synchronized (tasks) {
+            for (Task task : tasks.values()) {
+                if (!task.isCritical()) {
+                    continue;
+                }
+                if (task.getState() == TaskState.FAILED) {
+                    return Readiness.FAILED;
+                }
+                if (task.getState() == TaskState.RUNNING) {
+                    return Readiness.STARTING;
+                }
+            }
+        }
+        return Readiness.READY;
+    }
+
+    /**
+     * Get a snapshot of the submitted tasks.
+     *
+     * @return the tasks, mapped by their name
+     */
+    @NonNull
+    public Map<String, Task> getTasks() {
+        synchronized (tasks) {
+            return new LinkedHashMap<>(tasks);
+        }
+    }
+
+    /**
+     * Log the readiness of the app, once it's ready.
+     */
+    private synchronized void logIfReady() {
+        if (getReadiness() != Readiness.READY || readyLogged) {
+            return;
+        }
+        readyLogged = true;
+        log.info("Ready in {}ms, critical tasks completed", System.currentTimeMillis() - started);
+    }
+
+    /**
+     * The readiness of the app.
+     */
+    public enum Readiness {
+        /**
+         * The app is still starting, or critical tasks are running.
+         */
+        STARTING,
+
+        /**
+         * Every critical task has completed.
+         */
+        READY,
+
+        /**
+         * A critical task has failed, and is waiting to be retried.
+         */
+        FAILED
+    }
+
+    /**
+     * The state of a task.
+     */
+    public enum TaskState {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A submitted startup task.
+     */
+    @Getter @ToString
+    public static final class Task {
+        /**
+         * The name of this task.
+         */
+        @NonNull private final String name;
+
+        /**
+         * Whether this task is critical.
+         */
+        private final boolean critical;
+
+        /**
+         * The unix timestamp this task was started at.
+         */
+        private final long started;
+
+        /**
+         * The state of this task.
+         */
+        @NonNull private volatile TaskState state = TaskState.RUNNING;
+
+        /**
+         * The amount of times this task has been run.
+         */
+        private volatile int attempts;
+
+        /**
+         * The time (in millis) this task took, -1 if still running.
+         */
+        private volatile long duration = -1L;
+
+        private Task(@NonNull String name, boolean critical, long started) {
+            this.name = name;
+            this.critical = critical;
+            this.started = started;
+        }
+
+        /**
+         * Mark this task as being run again.
+         */
+        private void attempt() {
+            attempts++;
+            state = TaskState.RUNNING;
+        }
+
+        /**
+         * Mark this task as failed, before it's retried.
+         */
+        private void fail() {
+            state = TaskState.FAILED;
+        }
+
+        /**
+         * Mark this task as complete.
+         *
+         * @param cause the cause of the failure, null if successful
+         */
+        private void complete(Throwable cause) {
+            duration = System.currentTimeMillis() - started;
+            state = cause == null ? TaskState.COMPLETED : TaskState.FAILED;
+        }
+    }
+}
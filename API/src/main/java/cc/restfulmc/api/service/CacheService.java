@@ -0,0 +1,138 @@
+package cc.restfulmc.api.service;
+
+import cc.restfulmc.api.common.cache.TieredCache;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * A service for creating the {@link TieredCache}s
+ * in front of our Redis repositories, and tracking them.
+ *
+ * @author Braydon
+ */
+@Service @Log4j2(topic = "Cache Service")
+public final class CacheService {
+    /**
+     * The template to read the remaining TTL of cached elements with.
+     */
+    @NonNull private final StringRedisTemplate redisTemplate;
+
+    /**
+     * The created caches, mapped by their name.
+     */
+    private final Map<String, TieredCache<?>> caches = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Autowired
+    public CacheService(@NonNull RedisConnectionFactory connectionFactory) {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * Create a two tier cache in front of the given repository.
+     *
+     * @param repository the repository to put the cache in front of
+     * @param type       the type of cached element, annotated with {@link RedisHash}
+     * @param maxWeight  the maximum total weight of the in-process tier
+     * @param weigher    the function to weigh an element with
+     * @param maxL1Ttl   the longest time an element can live in the in-process tier
+     * @return the cache
+     * @param <T> the type of cached element
+     */
+    @NonNull
+    public <T> TieredCache<T> newCache(@NonNull CrudRepository<T, String> repository, @NonNull Class<T> type, long maxWeight,
+                                       @NonNull ToIntFunction<T> weigher, @NonNull Duration maxL1Ttl) {
+        String keyspace = getKeyspace(type);
+        TieredCache<T> cache = new TieredCache<>(keyspace, repository, id -> getRemainingTtl(keyspace + ":" + id),
+                maxWeight, weigher, maxL1Ttl
+        );
+        caches.put(keyspace, cache);
+        return cache;
+    }
+
+    /**
+     * Get the statistics of each cache.
+     *
+     * @return the statistics, mapped by cache name
+     */
+    @NonNull
+    public Map<String, TieredCache.Stats> getStats() {
+        Map<String, TieredCache.Stats> stats = new LinkedHashMap<>();
+        synchronized (caches) {
+            for (TieredCache<?> cache : caches.values()) {
+                stats.put(cache.getName(), cache.getStats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Read a field of many cached elements, along with their
+     * remaining TTL, in a single pipelined round trip to Redis.
+     *
+     * @param type  the type of cached element, annotated with {@link RedisHash}
+     * @param ids   the ids of the elements
+     * @param field the name of the field to read
+     * @return the raw field values, mapped by element id, missing if not cached
+     */
+    @NonNull
+    public Map<String, TieredCache.Loaded<String>> getFields(@NonNull Class<?> type, @NonNull List<String> ids, @NonNull String field) {
+        String keyspace = getKeyspace(type);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String id : ids) {
+                String key = keyspace + ":" + id;
+                stringConnection.hGet(key, field);
+                stringConnection.pTtl(key);
+            }
+            return null;
+        });
+        Map<String, TieredCache.Loaded<String>> loaded = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (results.get(i * 2) instanceof String value && results.get(i * 2 + 1) instanceof Long ttl) {
+                loaded.put(ids.get(i), new TieredCache.Loaded<>(value, ttl));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Get the Redis keyspace of the given cached type.
+     *
+     * @param type the type of cached element
+     * @return the keyspace
+     */
+    @NonNull
+    private static String getKeyspace(@NonNull Class<?> type) {
+        RedisHash redisHash = type.getAnnotation(RedisHash.class);
+        return redisHash == null || redisHash.value().isEmpty() ? type.getName() : redisHash.value();
+    }
+
+    /**
+     * Get the remaining TTL of the given key in Redis.
+     *
+     * @param key the key
+     * @return the remaining TTL (in millis), negative if the key doesn't expire or doesn't exist
+     */
+    private long getRemainingTtl(@NonNull String key) {
+        try {
+            Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+            return ttl == null ? -1L : ttl;
+        } catch (Exception ex) {
+            log.warn("Failed getting the TTL of {}: {}", key, ex.getMessage());
+            return -1L;
+        }
+    }
+}
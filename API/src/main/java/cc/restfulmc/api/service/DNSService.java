@@ -0,0 +1,343 @@
+package cc.restfulmc.api.service;
+
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.model.dns.DNSRecord;
+import cc.restfulmc.api.model.dns.impl.AAAARecord;
+import cc.restfulmc.api.model.dns.impl.ARecord;
+import cc.restfulmc.api.model.dns.impl.SRVRecord;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.net.InetAddresses;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A service for asynchronously resolving DNS records.
+ * <p>
+ * Queries are sent without blocking the calling thread,
+ * and answers are cached for as long as their TTL allows.
+ * Concurrent queries for the same record share a single
+ * round-trip to the resolver.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Service @Log4j2(topic = "DNS")
+public final class DNSService {
+    private static final String SRV_QUERY_PREFIX = "_minecraft._tcp.%s";
+
+    private static final long MIN_TTL = 5L; // The minimum time (in seconds) to cache an answer
+    private static final long MAX_TTL = 60L * 60L; // The maximum time (in seconds) to cache an answer
+    private static final long MAX_NEGATIVE_TTL = 5L * 60L; // The maximum time (in seconds) to cache a missing record
+    private static final long DEFAULT_NEGATIVE_TTL = 60L; // The time (in seconds) to cache a missing record without an SOA
+
+    /**
+     * The cached (and in-flight) answers, mapped by their type and name.
+     */
+    private final Cache<String, CompletableFuture<CachedAnswer>> answers = CacheBuilder.newBuilder()
+            .maximumSize(25_000L)
+            .build();
+
+    /**
+     * Resolve the Minecraft SRV records of the given hostname.
+     * <p>
+     * The records are ordered as clients should try them, by
+     * priority, and then randomly weighted within a priority.
+     * </p>
+     *
+     * @param hostname the hostname to resolve
+     * @return the future SRV records, empty if none
+     * @see <a href="https://datatracker.ietf.org/doc/html/rfc2782">RFC 2782</a>
+     */
+    @NonNull
+    public CompletableFuture<List<SRVRecord>> resolveSRV(@NonNull String hostname) {
+        return this.<SRVRecord>query(SRV_QUERY_PREFIX.formatted(hostname), Type.SRV,
+                record -> new SRVRecord((org.xbill.DNS.SRVRecord) record)
+        ).thenApply(DNSService::orderSrvRecords);
+    }
+
+    /**
+     * Resolve the A records of the given hostname.
+     *
+     * @param hostname the hostname to resolve
+     * @return the future A records, empty if none
+     */
+    @NonNull
+    public CompletableFuture<List<ARecord>> resolveA(@NonNull String hostname) {
+        return query(hostname, Type.A, record -> new ARecord((org.xbill.DNS.ARecord) record));
+    }
+
+    /**
+     * Resolve the AAAA records of the given hostname.
+     *
+     * @param hostname the hostname to resolve
+     * @return the future AAAA records, empty if none
+     */
+    @NonNull
+    public CompletableFuture<List<AAAARecord>> resolveAAAA(@NonNull String hostname) {
+        return query(hostname, Type.AAAA, record -> new AAAARecord((org.xbill.DNS.AAAARecord) record));
+    }
+
+    /**
+     * Resolve both the A and AAAA records
+     * of the given hostname at the same time.
+     *
+     * @param hostname the hostname to resolve
+     * @return the future addresses of the host
+     */
+    @NonNull
+    public CompletableFuture<HostAddresses> resolveHost(@NonNull String hostname) {
+        return resolveA(hostname).thenCombine(resolveAAAA(hostname), HostAddresses::new);
+    }
+
+    /**
+     * Check if the resolver definitively answered that the given
+     * hostname doesn't exist (NXDOMAIN), for both its addresses and,
+     * if requested, its Minecraft SRV records.
+     * <p>
+     * A failed or timed out query is never treated as
+     * the hostname not existing, as it may be transient.
+     * </p>
+     *
+     * @param hostname the hostname to check
+     * @param checkSrv whether the SRV records must not exist either
+     * @return the future of whether the hostname doesn't exist
+     */
+    @NonNull
+    public CompletableFuture<Boolean> isNonExistent(@NonNull String hostname, boolean checkSrv) {
+        if (InetAddresses.isInetAddress(hostname)) { // Addresses don't need resolving
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> host = isNonExistent(hostname, Type.A, record -> new ARecord((org.xbill.DNS.ARecord) record));
+        if (!checkSrv) {
+            return host;
+        }
+        return host.thenCombine(isNonExistent(SRV_QUERY_PREFIX.formatted(hostname), Type.SRV,
+                record -> new SRVRecord((org.xbill.DNS.SRVRecord) record)
+        ), Boolean::logicalAnd);
+    }
+
+    /**
+     * Check if the resolver definitively answered
+     * that the given name doesn't exist (NXDOMAIN).
+     *
+     * @param name   the name to check
+     * @param type   the type of record to query
+     * @param mapper the mapper for the answered records
+     * @return the future of whether the name doesn't exist, false if the query failed
+     */
+    @NonNull
+    private CompletableFuture<Boolean> isNonExistent(@NonNull String name, int type, @NonNull Function<Record, ? extends DNSRecord> mapper) {
+        return lookup(name, type, mapper).handle((answer, ex) -> ex == null && answer.nonExistent());
+    }
+
+    /**
+     * Query the records of a name, using the cached answer if it hasn't expired.
+     * <p>
+     * Failed queries complete with no records and aren't cached.
+     * </p>
+     *
+     * @param name   the name to query
+     * @param type   the type of record to query
+     * @param mapper the mapper for the answered records
+     * @return the future records, empty if none
+     * @param <T> the type of record
+     */
+    @NonNull @SuppressWarnings("unchecked")
+    private <T extends DNSRecord> CompletableFuture<List<T>> query(@NonNull String name, int type, @NonNull Function<Record, T> mapper) {
+        return lookup(name, type, mapper).handle((answer, ex) -> {
+            if (ex != null) {
+                log.warn("Failed resolving {} records for {}: {}", Type.string(type), name, ex.getMessage());
+                return List.of();
+            }
+            return (List<T>) answer.records();
+        });
+    }
+
+    /**
+     * Get the answer to a query, using the cached answer if it hasn't expired.
+     *
+     * @param name   the name to query
+     * @param type   the type of record to query
+     * @param mapper the mapper for the answered records
+     * @return the future answer, failed answers aren't cached
+     */
+    @NonNull
+    private CompletableFuture<CachedAnswer> lookup(@NonNull String name, int type, @NonNull Function<Record, ? extends DNSRecord> mapper) {
+        String key = Type.string(type) + ":" + name.toLowerCase();
+        CompletableFuture<CachedAnswer> future = answers.asMap().compute(key, (ignored, existing) -> {
+            if (existing != null && (!existing.isDone() || (!existing.isCompletedExceptionally() && !existing.join().isExpired()))) {
+                return existing; // Still in-flight, or cached and fresh
+            }
+            return send(name, type, mapper);
+        });
+        return future.whenComplete((answer, ex) -> {
+            if (ex != null) { // Don't cache failures
+                answers.asMap().remove(key, future);
+            }
+        });
+    }
+
+    /**
+     * Send a query to the resolver.
+     *
+     * @param name   the name to query
+     * @param type   the type of record to query
+     * @param mapper the mapper for the answered records
+     * @return the future answer
+     */
+    @NonNull
+    private CompletableFuture<CachedAnswer> send(@NonNull String name, int type, @NonNull Function<Record, ? extends DNSRecord> mapper) {
+        Message query;
+        try {
+            query = Message.newQuery(Record.newRecord(Name.fromString(name, Name.root), type, DClass.IN));
+        } catch (TextParseException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return Lookup.getDefaultResolver().sendAsync(query, Constants.VIRTUAL_EXECUTOR).toCompletableFuture().thenApply(response -> {
+            int rcode = response.getRcode();
+            if (rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN) { // The resolver failed to answer
+                throw new IllegalStateException("Resolver responded with " + Rcode.string(rcode));
+            }
+            List<DNSRecord> records = new ArrayList<>();
+            long ttl = MAX_TTL;
+            for (Record record : response.getSection(Section.ANSWER)) { // CNAMEs leading to the records count towards their TTL
+                ttl = Math.min(ttl, record.getTTL());
+                if (record.getType() == type) {
+                    records.add(mapper.apply(record));
+                }
+            }
+            if (records.isEmpty()) { // No records exist, cache that for as long as the zone allows
+                return new CachedAnswer(List.of(), rcode == Rcode.NXDOMAIN, expiresIn(getNegativeTtl(response)));
+            }
+            return new CachedAnswer(List.copyOf(records), false, expiresIn(Math.max(MIN_TTL, ttl)));
+        });
+    }
+
+    /**
+     * Order the given SRV records by priority, and then
+     * randomly by weight within each priority.
+     *
+     * @param records the records to order
+     * @return the ordered records
+     */
+    @NonNull
+    private static List<SRVRecord> orderSrvRecords(@NonNull List<SRVRecord> records) {
+        if (records.size() <= 1) {
+            return records;
+        }
+        List<SRVRecord> remaining = new ArrayList<>(records);
+        remaining.sort(Comparator.comparingInt(SRVRecord::getPriority));
+        List<SRVRecord> ordered = new ArrayList<>(records.size());
+        while (!remaining.isEmpty()) {
+            // Pick a record from the lowest remaining priority, with a chance proportional to its weight
+            int priority = remaining.getFirst().getPriority();
+            int end = 0;
+            int totalWeight = 0;
+            while (end < remaining.size() && remaining.get(end).getPriority() == priority) {
+                totalWeight += remaining.get(end++).getWeight();
+            }
+            int pick = ThreadLocalRandom.current().nextInt(totalWeight + 1);
+            int index = 0;
+            for (int running = remaining.getFirst().getWeight(); running < pick && index < end - 1; ) {
+                running += remaining.get(++index).getWeight();
+            }
+            ordered.add(remaining.remove(index));
+        }
+        return ordered;
+    }
+
+    /**
+     * Get the time (in seconds) a missing record
+     * can be cached for, from the zone's SOA record.
+     *
+     * @param response the response missing the record
+     * @return the negative TTL
+     */
+    private static long getNegativeTtl(@NonNull Message response) {
+        for (Record record : response.getSection(Section.AUTHORITY)) {
+            if (record instanceof SOARecord soa) {
+                return Math.clamp(Math.min(soa.getTTL(), soa.getMinimum()), MIN_TTL, MAX_NEGATIVE_TTL);
+            }
+        }
+        return DEFAULT_NEGATIVE_TTL;
+    }
+
+    /**
+     * Get the unix timestamp the given TTL expires at.
+     *
+     * @param ttl the TTL (in seconds)
+     * @return the expiration timestamp
+     */
+    private static long expiresIn(long ttl) {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
+    }
+
+    /**
+     * The resolved addresses of a host.
+     *
+     * @param a    the A records of the host
+     * @param aaaa the AAAA records of the host
+     */
+    public record HostAddresses(@NonNull List<ARecord> a, @NonNull List<AAAARecord> aaaa) {
+        /**
+         * Get the addresses of the host in the order
+         * they should be connected to, alternating between
+         * IPv6 and IPv4, starting with IPv6.
+         *
+         * @return the ordered addresses
+         * @see <a href="https://datatracker.ietf.org/doc/html/rfc8305#section-4">RFC 8305</a>
+         */
+        @NonNull
+        public List<InetAddress> getOrderedAddresses() {
+            List<InetAddress> addresses = new ArrayList<>(a.size() + aaaa.size());
+            for (int i = 0; i < Math.max(a.size(), aaaa.size()); i++) {
+                if (i < aaaa.size() && aaaa.get(i).getAddress() != null) {
+                    addresses.add(InetAddresses.forString(aaaa.get(i).getAddress()));
+                }
+                if (i < a.size() && a.get(i).getAddress() != null) {
+                    addresses.add(InetAddresses.forString(a.get(i).getAddress()));
+                }
+            }
+            return addresses;
+        }
+    }
+
+    /**
+     * A cached answer to a query.
+     *
+     * @param records     the answered records, empty if none
+     * @param nonExistent whether the name doesn't exist (NXDOMAIN)
+     * @param expiresAt   the unix timestamp this answer expires at
+     */
+    private record CachedAnswer(@NonNull List<DNSRecord> records, boolean nonExistent, long expiresAt) {
+        /**
+         * Check if this answer has expired.
+         *
+         * @return whether this answer has expired
+         */
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
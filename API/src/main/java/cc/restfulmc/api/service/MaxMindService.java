@@ -1,7 +1,13 @@
 package cc.restfulmc.api.service;
 
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.NetworkCache;
+import cc.restfulmc.api.model.server.AsnData;
 import cc.restfulmc.api.model.server.GeoLocation;
+import cc.restfulmc.api.model.server.NetworkData;
+import com.google.common.net.InetAddresses;
 import com.maxmind.db.CHMCache;
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
@@ -14,20 +20,29 @@ import lombok.*;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.io.FileUtils;
 import org.codehaus.plexus.archiver.tar.TarGZipUnArchiver;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Braydon
@@ -44,26 +59,88 @@ public final class MaxMindService {
      */
     private static final String DATABASE_DOWNLOAD_ENDPOINT = "https://download.maxmind.com/app/geoip_download?edition_id=%s&license_key=%s&suffix=tar.gz";
 
+    private static final long UPDATE_INTERVAL = 12L; // How often (in hours) to check for new database editions
+    private static final long READER_CLOSE_DELAY = 1L; // How long (in minutes) to keep a replaced reader open for in-flight lookups
+    private static final long DOWNLOAD_TIMEOUT = 10L; // The longest (in minutes) a database download can take
+
+    /**
+     * The client to check for and download databases with.
+     * <p>
+     * Database downloads redirect to a storage
+     * bucket, so redirects have to be followed.
+     * </p>
+     */
+    private static final HttpClient DOWNLOAD_CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Constants.HTTP_CLIENT_TIMEOUT)
+            .build();
+
     @Value("${maxmind.license}")
     private String license;
 
     /**
      * The currently loaded databases.
+     * <p>
+     * Each reader is swapped out as a whole when a new
+     * edition is loaded, so lookups never wait on an update.
+     * </p>
      */
-    private final Map<Database, DatabaseReader> databases = new HashMap<>();
+    private final Map<Database, AtomicReference<DatabaseReader>> databases = new EnumMap<>(Database.class);
+
+    /**
+     * The scheduler for updating the databases.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * The scheduler for closing replaced database readers.
+     * <p>
+     * This is kept apart from the update scheduler,
+     * so a slow update never holds back the closing
+     * (and unmapping) of a replaced reader.
+     * </p>
+     */
+    private ScheduledExecutorService readerCloser;
+
+    /**
+     * The looked up ASN and Geo location data, mapped by network.
+     * <p>
+     * Hosting providers put many servers in the same network,
+     * so lookups for them are answered by a single cached entry,
+     * rather than decoding the same records again.
+     * </p>
+     */
+    private final NetworkCache<NetworkData> networkCache = new NetworkCache<>(1 << 16);
+
+    @NonNull private final BootstrapService bootstrapService;
+
+    @Autowired
+    public MaxMindService(@NonNull BootstrapService bootstrapService) {
+        this.bootstrapService = bootstrapService;
+    }
 
     @PostConstruct
     public void onInitialize() {
-        // Load the databases
-        if (!license.equals("CHANGE_ME")) {
-            loadDatabases();
+        for (Database database : Database.values()) {
+            databases.put(database, new AtomicReference<>());
+        }
+        if (license.equals("CHANGE_ME")) {
+            return;
         }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("maxmind-updater").daemon().factory());
+        readerCloser = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("maxmind-reader-closer").daemon().factory());
+
+        // Load the databases we already have, and then download
+        // missing databases and check for new editions in the background.
+        // Geo data is optional, so this doesn't hold back readiness.
+        bootstrapService.submit("MaxMind databases", false, this::loadDatabases).whenComplete((ignored, ex) ->
+                scheduler.scheduleWithFixedDelay(this::updateDatabases, 0L, UPDATE_INTERVAL, TimeUnit.HOURS)
+        );
     }
 
     /**
-     * Load the databases.
+     * Load the databases that have been downloaded.
      */
-    @SneakyThrows
     private void loadDatabases() {
         log.info("Loading databases...");
 
@@ -71,21 +148,175 @@ public final class MaxMindService {
         if (!DATABASES_DIRECTORY.exists()) {
             DATABASES_DIRECTORY.mkdirs();
         }
+        int loaded = 0;
+        for (Database database : Database.values()) {
+            File databaseFile = getDatabaseFile(database);
+            if (!databaseFile.exists()) { // Not downloaded yet, the updater will get it
+                continue;
+            }
+            try {
+                openDatabase(database, databaseFile);
+                loaded++;
+            } catch (IOException ex) {
+                log.error("Failed loading database {}:", database.getEdition(), ex);
+            }
+        }
+        log.info("Loaded {} database(s)", loaded);
+    }
 
-        // Download missing databases
+    /**
+     * Download databases that are missing or have a new
+     * edition available, and swap them in once loaded.
+     */
+    private void updateDatabases() {
         for (Database database : Database.values()) {
-            File databaseFile = new File(DATABASES_DIRECTORY, database.getEdition() + ".mmdb");
-            if (!databaseFile.exists()) { // Doesn't exist, download it
+            try {
+                DatabaseReader current = getDatabase(database);
+                File databaseFile = getDatabaseFile(database);
+                if (current != null && !isUpdateAvailable(database, databaseFile)) {
+                    continue;
+                }
+                log.info("{} database {}...", current == null ? "Downloading" : "Updating", database.getEdition());
                 downloadDatabase(database, databaseFile);
+                databaseFile.setLastModified(System.currentTimeMillis()); // Mark when we got this edition
+                openDatabase(database, databaseFile);
+            } catch (Exception ex) {
+                log.error("Failed updating database {}:", database.getEdition(), ex);
             }
-            // Load the database and store it
-            databases.put(database, new DatabaseReader.Builder(databaseFile)
-                    .withCache(new CHMCache()) // Enable caching
-                    .build()
+        }
+    }
+
+    /**
+     * Check if a newer edition of the given database
+     * has been published since it was downloaded.
+     *
+     * @param database     the database to check
+     * @param databaseFile the downloaded file for the database
+     * @return whether a new edition is available
+     */
+    @SneakyThrows
+    private boolean isUpdateAvailable(@NonNull Database database, @NonNull File databaseFile) {
+        HttpResponse<Void> response = DOWNLOAD_CLIENT.send(HttpRequest.newBuilder()
+                .uri(URI.create(DATABASE_DOWNLOAD_ENDPOINT.formatted(database.getEdition(), license)))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(Constants.HTTP_CLIENT_TIMEOUT)
+                .build(), HttpResponse.BodyHandlers.discarding()
+        );
+        if (response.statusCode() / 100 == 3) { // A redirect we can't follow (e.g. to plain HTTP)
+            log.warn("Failed checking for a new edition of database {} (redirected to {})", database.getEdition(),
+                    response.headers().firstValue("Location").orElse("nowhere")
             );
-            log.info("Loaded database {}", database.getEdition());
+            return false;
+        }
+        if (response.statusCode() != 200) {
+            log.warn("Failed checking for a new edition of database {} (status {})", database.getEdition(), response.statusCode());
+            return false;
+        }
+        Optional<String> lastModified = response.headers().firstValue("Last-Modified");
+        if (lastModified.isEmpty()) { // We can't tell when it was published
+            return false;
+        }
+        Instant published = ZonedDateTime.parse(lastModified.get(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        return published.toEpochMilli() > databaseFile.lastModified();
+    }
+
+    /**
+     * Open the given database file, and swap it in for the
+     * currently loaded reader of the database, if any.
+     * <p>
+     * The replaced reader is closed after a short delay,
+     * rather than right away, so lookups that are still
+     * using it can finish.
+     * </p>
+     *
+     * @param database     the database to open
+     * @param databaseFile the file for the database
+     * @throws IOException if the database fails to open
+     */
+    private void openDatabase(@NonNull Database database, @NonNull File databaseFile) throws IOException {
+        DatabaseReader reader = new DatabaseReader.Builder(databaseFile)
+                .fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .withCache(new CHMCache()) // Enable caching
+                .build();
+        DatabaseReader previous = databases.get(database).getAndSet(reader);
+        networkCache.clear(); // The cached networks may have changed
+        if (previous != null) {
+            readerCloser.schedule(() -> closeReader(previous), READER_CLOSE_DELAY, TimeUnit.MINUTES);
+        }
+        log.info("Loaded database {} (built {})", database.getEdition(), reader.getMetadata().buildTime());
+    }
+
+    /**
+     * Close the given database reader.
+     *
+     * @param reader the reader to close
+     */
+    private static void closeReader(@NonNull DatabaseReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ex) {
+            log.warn("Failed closing database reader:", ex);
         }
-        log.info("Loaded {} database(s)", databases.size());
+    }
+
+    /**
+     * Get the file the given database is stored in.
+     *
+     * @param database the database
+     * @return the database file
+     */
+    @NonNull
+    private static File getDatabaseFile(@NonNull Database database) {
+        return new File(DATABASES_DIRECTORY, database.getEdition() + ".mmdb");
+    }
+
+    /**
+     * Lookup the ASN and Geo location data of the
+     * network the given ip belongs to.
+     * <p>
+     * The result is cached for the whole network, which is
+     * the most specific network returned by the databases.
+     * </p>
+     *
+     * @param ip the ip to lookup
+     * @return the network data
+     */
+    @NonNull
+    public NetworkData lookupNetwork(@NonNull String ip) {
+        NetworkData cached = networkCache.get(ip);
+        if (cached != null) {
+            return cached;
+        }
+        InetAddress address = InetAddresses.forString(ip);
+        int prefixLength = 0; // The prefix length of the network the data is shared by
+
+        AsnResponse asnResponse = lookupAsn(address);
+        AsnData asn = null;
+        if (asnResponse != null) {
+            asn = new AsnData(asnResponse.autonomousSystemNumber(), asnResponse.autonomousSystemOrganization(),
+                    asnResponse.network().toString());
+            prefixLength = asnResponse.network().prefixLength();
+        }
+        GeoLocation geo = null;
+        CityResponse cityResponse = lookupCity(address);
+        if (cityResponse != null) {
+            geo = GeoLocation.create(cityResponse.continent(), cityResponse.country(), cityResponse.city(),
+                    cityResponse.mostSpecificSubdivision(), cityResponse.postal(), cityResponse.location());
+            prefixLength = Math.max(prefixLength, cityResponse.traits().network().prefixLength());
+        }
+        if (geo == null) { // Fallback to the country
+            CountryResponse countryResponse = lookupCountry(address);
+            if (countryResponse != null) {
+                geo = GeoLocation.create(countryResponse.continent(), countryResponse.country(), null, null, null, null);
+                prefixLength = Math.max(prefixLength, countryResponse.traits().network().prefixLength());
+            }
+        }
+        if (asnResponse == null || cityResponse == null) { // The address wasn't in a database, we don't know its network
+            prefixLength = address.getAddress().length * 8;
+        }
+        NetworkData data = new NetworkData(asn, geo);
+        networkCache.put(ip, prefixLength, data);
+        return data;
     }
 
     /**
@@ -173,22 +404,26 @@ public final class MaxMindService {
     private void downloadDatabase(@NonNull Database database, @NonNull File databaseFile) {
         File downloadedFile = new File(DATABASES_DIRECTORY, database.getEdition() + ".tar.gz"); // The downloaded file
 
-        // Download the database if required
-        if (!downloadedFile.exists()) {
-            log.info("Downloading database {}...", database.getEdition());
-            long before = System.currentTimeMillis();
-            try (
-                    BufferedInputStream inputStream = new BufferedInputStream(new URL(DATABASE_DOWNLOAD_ENDPOINT.formatted(database.getEdition(), license)).openStream());
-                    FileOutputStream fileOutputStream = new FileOutputStream(downloadedFile)
-            ) {
-                byte[] dataBuffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(dataBuffer, 0, 1024)) != -1) {
-                    fileOutputStream.write(dataBuffer, 0, bytesRead);
-                }
-            }
-            log.info("Downloaded database {} in {}ms", database.getEdition(), System.currentTimeMillis() - before);
+        // Download the database, replacing any leftover download as it may be an older edition
+        log.info("Downloading database {}...", database.getEdition());
+        long before = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<Path>> download = DOWNLOAD_CLIENT.sendAsync(HttpRequest.newBuilder()
+                .uri(URI.create(DATABASE_DOWNLOAD_ENDPOINT.formatted(database.getEdition(), license)))
+                .timeout(Constants.HTTP_CLIENT_TIMEOUT)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofFile(downloadedFile.toPath())
+        );
+        HttpResponse<Path> response;
+        try {
+            response = download.get(DOWNLOAD_TIMEOUT, TimeUnit.MINUTES); // Bound the whole download, not just the connect
+        } catch (TimeoutException ex) {
+            download.cancel(true);
+            throw new IOException("Timed out downloading database %s".formatted(database.getEdition()));
         }
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed downloading database %s (status %s)".formatted(database.getEdition(), response.statusCode()));
+        }
+        log.info("Downloaded database {} in {}ms", database.getEdition(), System.currentTimeMillis() - before);
 
         // Extract the database once downloaded
         log.info("Extracting database {}...", database.getEdition());
@@ -212,7 +447,8 @@ public final class MaxMindService {
             // correct directory, and delete the downloaded contents
             for (File file : downloadedFiles) {
                 if (file.isFile() && file.getName().equals(databaseFile.getName())) {
-                    Files.move(file.toPath(), databaseFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    // Atomically replace the old file, a reader mapping it keeps the old contents
+                    Files.move(file.toPath(), databaseFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 
                     // Delete the downloaded contents
                     FileUtils.deleteDirectory(directory);
@@ -231,18 +467,29 @@ public final class MaxMindService {
      * @return the database reader, null if none
      */
     public DatabaseReader getDatabase(@NonNull Database database) {
-        return databases.get(database);
+        AtomicReference<DatabaseReader> reader = databases.get(database);
+        return reader == null ? null : reader.get();
     }
 
     /**
      * Cleanup when the app is destroyed.
      */
-    @PreDestroy @SneakyThrows
+    @PreDestroy
     public void cleanup() {
-        for (DatabaseReader database : databases.values()) {
-            database.close();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (readerCloser != null) {
+            for (Runnable pendingClose : readerCloser.shutdownNow()) { // Close the replaced readers now
+                pendingClose.run();
+            }
+        }
+        for (AtomicReference<DatabaseReader> reader : databases.values()) {
+            DatabaseReader database = reader.getAndSet(null);
+            if (database != null) {
+                closeReader(database);
+            }
         }
-        databases.clear();
     }
 
     /**
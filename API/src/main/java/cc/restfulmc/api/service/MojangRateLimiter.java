@@ -0,0 +1,137 @@
+package cc.restfulmc.api.service;
+
+import cc.restfulmc.api.common.MojangServer;
+import cc.restfulmc.api.common.concurrent.PriorityTokenBucket;
+import cc.restfulmc.api.common.concurrent.PriorityTokenBucket.Priority;
+import cc.restfulmc.api.common.web.JsonWebException;
+import cc.restfulmc.api.exception.impl.MojangRateLimitException;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * A service for governing the requests
+ * we make to each {@link MojangServer}.
+ * <p>
+ * Each server has a token bucket refilled at the rate it
+ * allows, so requests are spread out to stay under its
+ * limit, rather than finding out with a 429. Callers that
+ * have to wait are queued, with interactive lookups ahead
+ * of background refreshes.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Service @DependsOn("mojangConfig") @Log4j2(topic = "Mojang Rate Limiter")
+public final class MojangRateLimiter {
+    private static final int MAX_QUEUED = 1000; // The maximum amount of requests waiting per server
+    private static final long BURST_SECONDS = 10L; // The amount of seconds worth of requests that can be sent in a burst
+    private static final long DEFAULT_RETRY_AFTER = 1000L; // The time (in millis) to pause if a 429 has no Retry-After
+    private static final long MAX_RETRY_AFTER = 60_000L; // The longest time (in millis) a Retry-After can pause for
+
+    /**
+     * The longest time (in millis) a request will wait for its turn, by priority.
+     */
+    private static final Map<Priority, Long> MAX_WAIT = new EnumMap<>(Map.of(
+            Priority.INTERACTIVE, 10_000L,
+            Priority.BACKGROUND, 60_000L
+    ));
+
+    /**
+     * The scheduler for handing out queued permits.
+     */
+    @NonNull private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("mojang-rate-limiter").daemon().factory()
+    );
+
+    /**
+     * The bucket of each server.
+     */
+    @NonNull private final Map<MojangServer, PriorityTokenBucket> buckets = new EnumMap<>(MojangServer.class);
+
+    public MojangRateLimiter() {
+        for (MojangServer server : MojangServer.values()) {
+            double rate = server.getRequestsPerMinute() / 60D;
+            buckets.put(server, new PriorityTokenBucket(rate, Math.max(1D, rate * BURST_SECONDS), MAX_QUEUED, scheduler));
+        }
+    }
+
+    /**
+     * Execute a request to the given server once it's our turn.
+     * <p>
+     * If the server still rate limits the request, the bucket
+     * is paused for as long as it asks, and the request is
+     * queued again and retried once.
+     * </p>
+     *
+     * @param server   the server the request is made to
+     * @param priority the priority of the request
+     * @param request  the request to execute
+     * @return the response
+     * @param <T> the type of response
+     * @throws MojangRateLimitException if the request couldn't be made in time
+     */
+    public <T> T execute(@NonNull MojangServer server, @NonNull Priority priority, @NonNull Supplier<T> request) throws MojangRateLimitException {
+        PriorityTokenBucket bucket = buckets.get(server);
+        for (int attempt = 0; ; attempt++) {
+            awaitPermit(server, bucket, priority);
+            try {
+                return request.get();
+            } catch (JsonWebException ex) {
+                if (ex.getStatusCode() != 429) {
+                    throw ex;
+                }
+                long retryAfter = ex.getRetryAfter() < 0L ? DEFAULT_RETRY_AFTER : Math.min(ex.getRetryAfter(), MAX_RETRY_AFTER);
+                bucket.throttle(retryAfter);
+                log.warn("Rate limited by {}, pausing for {}ms (rate now {}/s)", server.getName(), retryAfter,
+                        "%.2f".formatted(bucket.getRate())
+                );
+                if (attempt > 0) {
+                    throw new MojangRateLimitException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for a permit to make a request to the given server.
+     *
+     * @param server   the server the request is made to
+     * @param bucket   the bucket of the server
+     * @param priority the priority of the request
+     * @throws MojangRateLimitException if the queue is full, or the wait is too long
+     */
+    private void awaitPermit(@NonNull MojangServer server, @NonNull PriorityTokenBucket bucket, @NonNull Priority priority) throws MojangRateLimitException {
+        CompletableFuture<Void> permit = bucket.acquire(priority);
+        try {
+            permit.get(MAX_WAIT.get(priority), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) { // The queue is full
+            log.warn("Too many requests queued for {} ({})", server.getName(), bucket.getQueued());
+            throw new MojangRateLimitException();
+        } catch (TimeoutException ex) {
+            if (!permit.cancel(false)) { // Granted just as we gave up, use it
+                return;
+            }
+            throw new MojangRateLimitException();
+        } catch (InterruptedException ex) {
+            permit.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new MojangRateLimitException();
+        }
+    }
+
+    /**
+     * Cleanup when the app is destroyed.
+     */
+    @PreDestroy
+    public void cleanup() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,81 +1,124 @@
 package cc.restfulmc.api.service;
 
-import cc.restfulmc.api.common.ExpiringSet;
-import cc.restfulmc.api.common.ExpiringSet.ExpirationPolicy;
+import cc.restfulmc.api.common.BlockedServerIndex;
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.LatencyHistory;
+import cc.restfulmc.api.common.web.WebClient;
 import cc.restfulmc.api.common.MojangServer;
-import com.google.common.base.Joiner;
-import com.google.common.base.Splitter;
-import com.google.common.collect.Lists;
-import com.google.common.hash.Hashing;
+import com.google.common.collect.Maps;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStream;
-import java.net.URL;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * A service for interacting with the Mojang API.
  *
  * @author Braydon
  */
-@Service
+@Service @DependsOn("mojangConfig")
 @Log4j2(topic = "Mojang Service")
 public final class MojangService {
-    private static final String FETCH_BLOCKED_SERVERS = MojangServer.SESSION.getEndpoint() + "/blockedservers";
+    private static final String FETCH_BLOCKED_SERVERS = "/blockedservers";
 
-    private static final Splitter DOT_SPLITTER = Splitter.on('.');
-    private static final Joiner DOT_JOINER = Joiner.on('.');
+    private static final long STATUS_PROBE_INTERVAL = 30L; // How often (in seconds) to probe Mojang servers
+    private static final int STATUS_HISTORY_SIZE = 240; // The amount of probes to keep per server, 2 hours worth
+    private static final long BLOCKED_SERVERS_INTERVAL = 60L; // How often (in minutes) to fetch blocked servers
 
     /**
      * Mapped statuses for {@link MojangServer}'s.
      */
-    @Getter private final Map<MojangServer, MojangServer.Status> mojangServerStatuses = Collections.synchronizedMap(new HashMap<>());
+    @Getter private final Map<MojangServer, MojangServer.Status> mojangServerStatuses = new ConcurrentHashMap<>();
 
     /**
-     * A list of banned server hashes provided by Mojang.
+     * The latency history of each {@link MojangServer}.
+     */
+    private final Map<MojangServer, LatencyHistory> mojangServerHistories = new EnumMap<>(MojangServer.class);
+
+    /**
+     * The scheduler for probing Mojang servers and fetching blocked servers.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * The index of banned server hashes provided by Mojang.
      * <p>
      * This is periodically fetched from Mojang, see
-     * {@link #fetchBlockedServers()} for more info.
+     * {@link #fetchBlockedServers()} for more info,
+     * and swapped out as a whole when refreshed.
      * </p>
      *
      * @see <a href="https://wiki.vg/Mojang_API#Blocked_Servers">Mojang API</a>
      */
-    private List<String> bannedServerHashes;
+    private volatile BlockedServerIndex blockedServers = BlockedServerIndex.EMPTY;
 
     /**
-     * A cache of blocked server hostnames.
-     *
-     * @see #isServerHostnameBlocked(String) for more
+     * The idle matchers for checking hostnames against the blocked servers.
+     * <p>
+     * Requests run on virtual threads, so matchers are pooled
+     * here rather than kept per thread. If the pool is empty,
+     * a new matcher is created, and kept if there's room.
+     * </p>
      */
-    private final ExpiringSet<String> blockedServersCache = new ExpiringSet<>(ExpirationPolicy.CREATED, 10L, TimeUnit.MINUTES);
+    private final BlockingQueue<BlockedServerIndex.Matcher> blockedServerMatchers = new ArrayBlockingQueue<>(
+            Runtime.getRuntime().availableProcessors() * 4
+    );
+
+    @NonNull private final BootstrapService bootstrapService;
+
+    @Autowired
+    public MojangService(@NonNull BootstrapService bootstrapService) {
+        this.bootstrapService = bootstrapService;
+    }
 
     @PostConstruct
     public void onInitialize() {
-        // Schedule a task to fetch statuses
-        // of Mojang servers every few minutes
-        new Timer().scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                fetchMojangServerStatuses();
-            }
-        }, 0L, 60L * 3L * 1000L);
-
-        // Schedule a task to fetch blocked
-        // servers from Mojang every hour.
-        new Timer().scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                fetchBlockedServers();
-            }
-        }, 0L, 60L * 60L * 1000L);
+        for (MojangServer server : MojangServer.values()) {
+            mojangServerHistories.put(server, new LatencyHistory(STATUS_HISTORY_SIZE));
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("mojang-scheduler").daemon().factory());
+
+        // Probe the Mojang servers and fetch blocked servers alongside the
+        // other startup tasks, neither are needed to serve requests, and then
+        // keep probing the servers, and refetch the blocked servers every hour
+        bootstrapService.submit("Mojang server statuses", false, this::fetchMojangServerStatuses).whenComplete((ignored, ex) ->
+                scheduler.scheduleAtFixedRate(this::fetchMojangServerStatuses, STATUS_PROBE_INTERVAL, STATUS_PROBE_INTERVAL, TimeUnit.SECONDS)
+        );
+        bootstrapService.submit("Mojang blocked servers", false, this::fetchBlockedServers).whenComplete((ignored, ex) ->
+                scheduler.scheduleAtFixedRate(() -> {
+                    try {
+                        fetchBlockedServers();
+                    } catch (Exception fetchEx) { // Don't let a failed fetch cancel the next ones
+                        log.error("Failed fetching blocked servers:", fetchEx);
+                    }
+                }, BLOCKED_SERVERS_INTERVAL, BLOCKED_SERVERS_INTERVAL, TimeUnit.MINUTES)
+        );
+    }
+
+    /**
+     * Get a snapshot of the latency history of each {@link MojangServer}.
+     *
+     * @return the snapshots, mapped by server
+     */
+    @NonNull
+    public Map<MojangServer, LatencyHistory.Snapshot> getMojangServerHistories() {
+        Map<MojangServer, LatencyHistory.Snapshot> snapshots = new EnumMap<>(MojangServer.class);
+        for (Map.Entry<MojangServer, LatencyHistory> entry : mojangServerHistories.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
     }
 
     /**
@@ -86,64 +129,74 @@ public final class MojangService {
      * @return whether the hostname is blocked
      */
     public boolean isServerBlocked(@NonNull String hostname) {
-        // Remove trailing dots
-        while (hostname.charAt(hostname.length() - 1) == '.') {
-            hostname = hostname.substring(0, hostname.length() - 1);
-        }
-        // Is the hostname banned?
-        if (isServerHostnameBlocked(hostname)) {
-            return true;
+        BlockedServerIndex.Matcher matcher = borrowMatcher();
+        try {
+            return matcher.isBlocked(blockedServers, hostname);
+        } finally {
+            blockedServerMatchers.offer(matcher);
         }
-        List<String> splitDots = Lists.newArrayList(DOT_SPLITTER.split(hostname)); // Split the hostname by dots
-        boolean isIp = splitDots.size() == 4; // Is it an IP address?
-        if (isIp) {
-            for (String element : splitDots) {
-                try {
-                    int part = Integer.parseInt(element);
-                    if (part >= 0 && part <= 255) { // Ensure the part is within the valid range
-                        continue;
-                    }
-                } catch (NumberFormatException ignored) {
-                    // Safely ignore, not a number
-                }
-                isIp = false;
-                break;
-            }
-        }
-        // Check if the hostname is blocked
-        if (!isIp && isServerHostnameBlocked("*." + hostname)) {
-            return true;
-        }
-        // Additional checks for the hostname
-        while (splitDots.size() > 1) {
-            splitDots.remove(isIp ? splitDots.size() - 1 : 0);
-            String starredPart = isIp ? DOT_JOINER.join(splitDots) + ".*" : "*." + DOT_JOINER.join(splitDots);
-            if (isServerHostnameBlocked(starredPart)) {
-                return true;
+    }
+
+    /**
+     * Check which of the servers with the
+     * given hostnames are blocked by Mojang.
+     *
+     * @param hostnames the server hostnames to check
+     * @return whether each hostname is blocked, in the order given
+     */
+    @NonNull
+    public Map<String, Boolean> areServersBlocked(@NonNull Collection<String> hostnames) {
+        BlockedServerIndex index = blockedServers; // Check the whole batch against the same blocklist
+        BlockedServerIndex.Matcher matcher = borrowMatcher();
+        try {
+            Map<String, Boolean> blocked = Maps.newLinkedHashMapWithExpectedSize(hostnames.size());
+            for (String hostname : hostnames) {
+                blocked.put(hostname, matcher.isBlocked(index, hostname));
             }
+            return blocked;
+        } finally {
+            blockedServerMatchers.offer(matcher);
         }
-        return false;
     }
 
     /**
-     * Fetch the statuses of {@link MojangServer}'s.
+     * Borrow an idle matcher from the pool,
+     * creating a new one if there are none.
+     *
+     * @return the matcher
+     */
+    @NonNull
+    private BlockedServerIndex.Matcher borrowMatcher() {
+        BlockedServerIndex.Matcher matcher = blockedServerMatchers.poll();
+        return matcher == null ? new BlockedServerIndex.Matcher() : matcher;
+    }
+
+    /**
+     * Probe each {@link MojangServer} at the same time, and
+     * record their statuses and latencies.
      */
-    @SneakyThrows
     private void fetchMojangServerStatuses() {
         log.debug("Checking Mojang server statuses...");
+        long timestamp = System.currentTimeMillis();
+        Map<MojangServer, CompletableFuture<MojangServer.Probe>> probes = new EnumMap<>(MojangServer.class);
+        for (MojangServer server : MojangServer.values()) {
+            probes.put(server, CompletableFuture.supplyAsync(server::probe, Constants.VIRTUAL_EXECUTOR));
+        }
         List<MojangServer> degradedServices = new ArrayList<>();
         List<MojangServer> offlineServices = new ArrayList<>();
-        Arrays.stream(MojangServer.values()).parallel().forEach(server -> {
-            log.debug("Pinging {}...", server.getEndpoint());
-            MojangServer.Status status = server.getStatus(); // Retrieve the server status
+        for (Map.Entry<MojangServer, CompletableFuture<MojangServer.Probe>> entry : probes.entrySet()) {
+            MojangServer server = entry.getKey();
+            MojangServer.Probe probe = entry.getValue().join(); // Probes never fail, they time out as offline
+            MojangServer.Status status = probe.status();
             if (status == MojangServer.Status.DEGRADED) {
                 degradedServices.add(server);
             } else if (status == MojangServer.Status.OFFLINE) {
                 offlineServices.add(server);
             }
-            log.debug("Retrieved status of {}: {}", server.getEndpoint(), status.name());
+            log.debug("Retrieved status of {} in {}ms: {}", server.getEndpoint(), probe.latency(), status.name());
             mojangServerStatuses.put(server, status); // Cache the server status
-        });
+            mojangServerHistories.get(server).record(timestamp, probe.latency(), status != MojangServer.Status.OFFLINE);
+        }
         if (!degradedServices.isEmpty() || !offlineServices.isEmpty()) {
             if (!degradedServices.isEmpty()) {
                 log.warn("There are {} degraded Mojang services:", degradedServices.size());
@@ -165,37 +218,16 @@ public final class MojangService {
      */
     @SneakyThrows
     private void fetchBlockedServers() {
-        try (
-                InputStream inputStream = new URL(FETCH_BLOCKED_SERVERS).openStream();
-                Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8).useDelimiter("\n");
-        ) {
-            List<String> hashes = new ArrayList<>();
-            while (scanner.hasNext()) {
-                hashes.add(scanner.next());
+        WebClient.Response<List<String>> response = WebClient.send(WebClient.newRequest(MojangServer.SESSION.getEndpoint() + FETCH_BLOCKED_SERVERS).build(), body -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                return reader.lines().toList();
             }
-            bannedServerHashes = Collections.synchronizedList(hashes);
-            log.info("Fetched {} banned server hashes", bannedServerHashes.size());
-        }
-    }
-
-    /**
-     * Check if the hash for the given
-     * hostname is in the blocked server list.
-     *
-     * @param hostname the hostname to check
-     * @return whether the hostname is blocked
-     */
-    private boolean isServerHostnameBlocked(@NonNull String hostname) {
-        // Check the cache first for the hostname
-        if (blockedServersCache.contains(hostname)) {
-            return true;
-        }
-        String hashed = Hashing.sha1().hashBytes(hostname.toLowerCase().getBytes(StandardCharsets.ISO_8859_1)).toString();
-        boolean blocked = bannedServerHashes != null && (bannedServerHashes.contains(hashed)); // Is the hostname blocked?
-        if (blocked) { // Cache the blocked hostname
-            blockedServersCache.add(hostname);
+        });
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to fetch blocked servers: " + response.statusCode());
         }
-        return blocked;
+        blockedServers = BlockedServerIndex.of(response.body());
+        log.info("Fetched {} banned server hashes", blockedServers.size());
     }
 
     /**
@@ -203,8 +235,11 @@ public final class MojangService {
      */
     @PreDestroy
     public void cleanup() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
         mojangServerStatuses.clear();
-        bannedServerHashes.clear();
-        blockedServersCache.clear();
+        blockedServers = BlockedServerIndex.EMPTY;
+        blockedServerMatchers.clear();
     }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package cc.restfulmc.api.service;
 
 import cc.restfulmc.api.common.*;
+import cc.restfulmc.api.common.cache.TieredCache;
+import cc.restfulmc.api.common.concurrent.MicroBatcher;
+import cc.restfulmc.api.common.concurrent.PriorityTokenBucket.Priority;
+import cc.restfulmc.api.common.concurrent.SingleFlight;
 import cc.restfulmc.api.common.web.JsonWebException;
 import cc.restfulmc.api.common.web.JsonWebRequest;
 import cc.restfulmc.api.exception.impl.BadRequestException;
@@ -11,6 +15,7 @@ import cc.restfulmc.api.model.player.ProfileAction;
 import cc.restfulmc.api.model.player.cache.CachedPlayer;
 import cc.restfulmc.api.model.player.cache.CachedPlayerName;
 import cc.restfulmc.api.model.player.cache.CachedSkinPartTexture;
+import cc.restfulmc.api.model.player.cache.CachedUnknownPlayerName;
 import cc.restfulmc.api.model.player.skin.Skin;
 import cc.restfulmc.api.model.player.skin.SkinRendererType;
 import cc.restfulmc.api.model.token.mojang.MojangProfileToken;
@@ -18,6 +23,9 @@ import cc.restfulmc.api.model.token.mojang.MojangUsernameToUUIDToken;
 import cc.restfulmc.api.repository.PlayerCacheRepository;
 import cc.restfulmc.api.repository.PlayerNameCacheRepository;
 import cc.restfulmc.api.repository.SkinPartTextureCacheRepository;
+import cc.restfulmc.api.repository.UnknownPlayerNameCacheRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
@@ -29,10 +37,13 @@ import org.springframework.stereotype.Service;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Braydon
@@ -41,37 +52,126 @@ import java.util.concurrent.CompletableFuture;
 public final class PlayerService {
     public static PlayerService INSTANCE;
 
-    private static final String UUID_TO_PROFILE = MojangServer.SESSION.getEndpoint() + "/session/minecraft/profile/%s";
-    private static final String USERNAME_TO_UUID = MojangServer.API.getEndpoint() + "/users/profiles/minecraft/%s";
+    private static final String UUID_TO_PROFILE = "/session/minecraft/profile/%s";
+    private static final String USERNAMES_TO_UUIDS = "/profiles/minecraft";
+
+    private static final int MAX_USERNAME_BATCH_SIZE = 10; // The maximum amount of usernames Mojang resolves in one request
+    private static final long USERNAME_BATCH_DELAY = 10L; // The time (in millis) a username waits for others to batch with
 
     private static final int MIN_PART_TEXTURE_SIZE = 64;
     private static final int MAX_PART_TEXTURE_SIZE = 1024;
 
+    private static final int MAX_BATCH_SIZE = 200; // The maximum amount of players in a batch lookup
+    private static final int MAX_BATCH_CONCURRENCY = 32; // The maximum amount of players looked up at once in a batch
+
+    private static final long PLAYER_FRESH_TTL = 60L * 60L * 1000L; // How long a cached player is fresh for, before it's refreshed
+    private static final long REFRESH_RETRY_DELAY = 1L; // The time (in minutes) before a failed refresh is retried
+
+    private static final int PLAYER_BASE_WEIGHT = 4096; // The estimated size (in bytes) of a cached player, without its skin and cape, mostly its signed properties
+    private static final int PLAYER_NAME_WEIGHT = 128; // The estimated size (in bytes) of a cached username
+
     @NonNull private final S3Service s3Service;
 
     /**
-     * The cache repository for {@link Player}'s by their username.
+     * The cache for {@link Player}'s by their username.
+     */
+    @NonNull private final TieredCache<CachedPlayerName> playerNameCache;
+
+    /**
+     * The cache for {@link Player}'s.
+     */
+    @NonNull private final TieredCache<CachedPlayer> playerCache;
+
+    /**
+     * The cache for {@link SkinRendererType}'s.
+     */
+    @NonNull private final TieredCache<CachedSkinPartTexture> skinPartTextureCache;
+
+    /**
+     * The cache repository for usernames that don't belong to any player.
+     */
+    @NonNull private final UnknownPlayerNameCacheRepository unknownPlayerNameCache;
+
+    /**
+     * The usernames recently found to not belong to any player.
+     * <p>
+     * This is an in-process copy of the unknown username cache,
+     * checked first so repeat lookups of an unknown username
+     * don't cost a trip to Redis. It's kept for less time than
+     * the Redis cache, so it never outlives it by much.
+     * </p>
+     */
+    private final Cache<String, Boolean> recentlyUnknownNames = CacheBuilder.newBuilder()
+            .maximumSize(100_000L)
+            .expireAfterWrite(1L, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * The in-flight player lookups, mapped by their cache key.
+     */
+    private final SingleFlight<String, CachedPlayer> playerLookups = new SingleFlight<>();
+
+    /**
+     * The in-flight username to UUID lookups, mapped by the lowercase username.
+     */
+    private final SingleFlight<String, UUID> uuidLookups = new SingleFlight<>();
+
+    /**
+     * The cache keys of the stale players currently being refreshed.
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The cache keys of the stale players that recently failed to
+     * refresh, and are being served stale until they can be refreshed.
      */
-    @NonNull private final PlayerNameCacheRepository playerNameCache;
+    private final ExpiringSet<String> failedRefreshes = new ExpiringSet<>(ExpiringSet.ExpirationPolicy.CREATED, REFRESH_RETRY_DELAY, TimeUnit.MINUTES);
 
     /**
-     * The cache repository for {@link Player}'s.
+     * The in-flight skin part renders, mapped by their cache key.
      */
-    @NonNull private final PlayerCacheRepository playerCache;
+    private final SingleFlight<String, byte[]> skinPartRenders = new SingleFlight<>();
 
     /**
-     * The cache repository for {@link SkinRendererType}'s.
+     * The rate limiter for requests to Mojang.
      */
-    @NonNull private final SkinPartTextureCacheRepository skinPartTextureCache;
+    @NonNull private final MojangRateLimiter mojangRateLimiter;
+
+    /**
+     * The service to read many cached elements at once with.
+     */
+    @NonNull private final CacheService cacheService;
+
+    /**
+     * The batcher for username to UUID requests to Mojang, keyed by the lowercase username.
+     * <p>
+     * Uncached usernames requested around the same time
+     * are resolved together, with a single bulk request.
+     * </p>
+     */
+    private final MicroBatcher<String, UUID> uuidBatcher = new MicroBatcher<>(
+            MAX_USERNAME_BATCH_SIZE, USERNAME_BATCH_DELAY, this::requestUuids, Constants.VIRTUAL_EXECUTOR
+    );
 
     @Autowired
     public PlayerService(@NonNull S3Service s3Service, @NonNull PlayerNameCacheRepository playerNameCache,
-                         @NonNull PlayerCacheRepository playerCache, @NonNull SkinPartTextureCacheRepository skinPartTextureCache) {
+                         @NonNull PlayerCacheRepository playerCache, @NonNull SkinPartTextureCacheRepository skinPartTextureCache,
+                         @NonNull UnknownPlayerNameCacheRepository unknownPlayerNameCache, @NonNull MojangRateLimiter mojangRateLimiter,
+                         @NonNull CacheService cacheService) {
         INSTANCE = this;
         this.s3Service = s3Service;
-        this.playerNameCache = playerNameCache;
-        this.playerCache = playerCache;
-        this.skinPartTextureCache = skinPartTextureCache;
+        this.mojangRateLimiter = mojangRateLimiter;
+        this.cacheService = cacheService;
+        this.playerNameCache = cacheService.newCache(playerNameCache, CachedPlayerName.class, 4L * 1024L * 1024L,
+                name -> PLAYER_NAME_WEIGHT, Duration.ofMinutes(5L)
+        );
+        this.playerCache = cacheService.newCache(playerCache, CachedPlayer.class, 64L * 1024L * 1024L,
+                PlayerService::weigh, Duration.ofMinutes(5L)
+        );
+        this.skinPartTextureCache = cacheService.newCache(skinPartTextureCache, CachedSkinPartTexture.class, 64L * 1024L * 1024L,
+                texture -> texture.getTexture().length, Duration.ofMinutes(5L)
+        );
+        this.unknownPlayerNameCache = unknownPlayerNameCache;
     }
 
     /**
@@ -94,38 +194,229 @@ public final class PlayerService {
     public CachedPlayer getPlayer(@NonNull String query, boolean signed) throws BadRequestException, ResourceNotFoundException, MojangRateLimitException {
         log.info("Requesting player with query: {}", query);
 
-        UUID uuid; // The player UUID to lookup
+        UUID parsedUuid = parseUuid(query); // The player UUID to lookup
+        if (parsedUuid == null) { // The query is a username, request from Mojang
+            parsedUuid = usernameToUuid(query);
+            log.info("Found UUID for username {}: {}", query, parsedUuid);
+        }
+        UUID uuid = parsedUuid;
+        String cacheKey = "%s-%s".formatted(uuid, signed); // The cache id of the player
+
+        return playerLookups.execute(cacheKey, () -> lookupPlayer(query, uuid, cacheKey, signed));
+    }
+
+    /**
+     * Get many players by their usernames or UUIDs.
+     * <p>
+     * The UUIDs of every cached username are read from
+     * the cache at once. The remaining usernames and the
+     * players are then looked up concurrently (capped at
+     * {@link #MAX_BATCH_CONCURRENCY} at a time), with
+     * uncached usernames resolved together in bulk, and
+     * requests to Mojang kept within its rate limits.
+     * </p>
+     *
+     * @param queries the usernames or UUIDs of the players
+     * @param signed  whether the profiles are signed
+     * @return the future player of each query, in the order of the queries
+     * @throws BadRequestException if the batch size is invalid
+     */
+    @NonNull
+    public List<CompletableFuture<CachedPlayer>> getPlayers(@NonNull List<String> queries, boolean signed) throws BadRequestException {
+        if (queries.isEmpty() || queries.size() > MAX_BATCH_SIZE) { // Invalid batch size
+            throw new BadRequestException("Invalid batch size. Must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        log.info("Looking up a batch of {} players...", queries.size());
+
+        // Collect the valid usernames, and read their UUIDs from the cache at once
+        Set<String> usernames = new LinkedHashSet<>();
+        for (String query : queries) {
+            try {
+                if (parseUuid(query) == null) {
+                    usernames.add(query.toLowerCase());
+                }
+            } catch (BadRequestException ignored) {
+                // Reported when the query is looked up
+            }
+        }
+        Map<String, UUID> cachedUuids = getCachedUuids(usernames);
+
+        Semaphore permits = new Semaphore(MAX_BATCH_CONCURRENCY);
+        List<CompletableFuture<CachedPlayer>> players = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            players.add(CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    UUID parsedUuid = parseUuid(query);
+                    if (parsedUuid == null) { // Resolve the username, unless it was cached
+                        String username = query.toLowerCase();
+                        parsedUuid = cachedUuids == null ? usernameToUuid(query) : cachedUuids.get(username);
+                        if (parsedUuid == null) {
+                            parsedUuid = uuidLookups.execute(username, () -> requestUuid(query, username));
+                        }
+                    }
+                    UUID uuid = parsedUuid;
+                    String cacheKey = "%s-%s".formatted(uuid, signed); // The cache id of the player
+                    return playerLookups.execute(cacheKey, () -> lookupPlayer(query, uuid, cacheKey, signed));
+                } finally {
+                    permits.release();
+                }
+            }, Constants.VIRTUAL_EXECUTOR));
+        }
+        return players;
+    }
+
+    /**
+     * Parse the given player query as a UUID.
+     *
+     * @param query the query to parse
+     * @return the UUID, null if the query is a username
+     * @throws BadRequestException if the UUID or username is invalid
+     */
+    private UUID parseUuid(@NonNull String query) throws BadRequestException {
         boolean isFullUuid = query.length() == 36; // Was a UUID provided?
         if (query.length() == 32 || isFullUuid) { // Parse the query as a UUID
             try {
-                uuid = isFullUuid ? UUID.fromString(query) : UUIDUtils.addDashes(query);
-                log.info("Parsed {}UUID: {} -> {}", isFullUuid ? "" : "trimmed ", query, uuid);
+                UUID parsedUuid = isFullUuid ? UUID.fromString(query) : UUIDUtils.addDashes(query);
+                log.info("Parsed {}UUID: {} -> {}", isFullUuid ? "" : "trimmed ", query, parsedUuid);
+                return parsedUuid;
             } catch (IllegalArgumentException ex) {
                 throw new BadRequestException("Malformed UUID provided: %s".formatted(query));
             }
-        } else { // The query is a username, request from Mojang
-            if (!MiscUtils.isUsernameValid(query)) { // Ensure the username is valid
-                throw new BadRequestException("Invalid username provided: %s".formatted(query));
+        }
+        if (!MiscUtils.isUsernameValid(query)) { // Ensure the username is valid
+            throw new BadRequestException("Invalid username provided: %s".formatted(query));
+        }
+        return null;
+    }
+
+    /**
+     * Get the cached UUIDs of the given usernames,
+     * reading every one missing from memory from
+     * Redis in a single pipelined round trip.
+     *
+     * @param usernames the lowercase usernames
+     * @return the cached UUIDs, mapped by username, null if the cache couldn't be read
+     */
+    private Map<String, UUID> getCachedUuids(@NonNull Set<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Map<String, CachedPlayerName> cached = playerNameCache.findAllById(usernames, ids -> {
+                Map<String, TieredCache.Loaded<CachedPlayerName>> loaded = new HashMap<>();
+                for (Map.Entry<String, TieredCache.Loaded<String>> entry : cacheService.getFields(CachedPlayerName.class, ids, "uniqueId").entrySet()) {
+                    try {
+                        UUID uuid = UUID.fromString(entry.getValue().value());
+                        loaded.put(entry.getKey(), new TieredCache.Loaded<>(new CachedPlayerName(entry.getKey(), uuid), entry.getValue().remainingTtl()));
+                    } catch (IllegalArgumentException ignored) {
+                        // Not a UUID, look the username up again
+                    }
+                }
+                return loaded;
+            });
+            Map<String, UUID> uuids = new HashMap<>();
+            for (Map.Entry<String, CachedPlayerName> entry : cached.entrySet()) {
+                uuids.put(entry.getKey(), entry.getValue().getUniqueId());
             }
-            uuid = usernameToUuid(query);
-            log.info("Found UUID for username {}: {}", query, uuid);
+            log.info("Found {}/{} UUIDs in cache for the batch", uuids.size(), usernames.size());
+            return uuids;
+        } catch (Exception ex) {
+            log.warn("Failed reading cached UUIDs for the batch, looking them up one by one: {}", ex.getMessage());
+            return null;
         }
-        String cacheKey = "%s-%s".formatted(uuid, signed); // The cache id of the player
+    }
 
+    /**
+     * Lookup a player by their UUID, requesting
+     * their profile from Mojang if it isn't cached.
+     *
+     * @param query    the original query for the player
+     * @param uuid     the UUID of the player
+     * @param cacheKey the cache key of the player
+     * @param signed   whether the profile is signed
+     * @return the player
+     * @throws ResourceNotFoundException if the player is not found
+     */
+    @NonNull
+    private CachedPlayer lookupPlayer(@NonNull String query, @NonNull UUID uuid, @NonNull String cacheKey, boolean signed) throws ResourceNotFoundException {
         // Check the cache for the player
         // and return it if it's present
         Optional<CachedPlayer> cached = playerCache.findById(cacheKey);
         if (cached.isPresent()) { // Respond with the cache if present
-            log.info("Found player in cache: {}", uuid);
+            if (System.currentTimeMillis() - cached.get().getCached() >= PLAYER_FRESH_TTL) { // Serve it stale, and refresh it
+                log.info("Found stale player in cache: {}", uuid);
+                refreshPlayer(query, uuid, cacheKey, signed);
+            } else {
+                log.info("Found player in cache: {}", uuid);
+            }
             return cached.get();
         }
+        return requestPlayer(query, uuid, cacheKey, signed, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Refresh a stale player in the background, unless it's
+     * already being refreshed, or recently failed to refresh.
+     * <p>
+     * The player is only removed from the cache if Mojang
+     * answers that it no longer exists (no content). Any other
+     * failure (e.g. a 400 or a timeout) may be transient, so the
+     * stale player keeps being served until it expires.
+     * </p>
+     *
+     * @param query    the original query for the player
+     * @param uuid     the UUID of the player
+     * @param cacheKey the cache key of the player
+     * @param signed   whether the profile is signed
+     */
+    private void refreshPlayer(@NonNull String query, @NonNull UUID uuid, @NonNull String cacheKey, boolean signed) {
+        if (failedRefreshes.contains(cacheKey) || !refreshing.add(cacheKey)) { // Recently failed, or already being refreshed
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                requestPlayer(query, uuid, cacheKey, signed, Priority.BACKGROUND);
+                log.info("Refreshed stale player: {}", uuid);
+            } catch (ResourceNotFoundException ex) {
+                if (ex.getCause() instanceof JsonWebException webEx && webEx.getStatusCode() == 204) {
+                    playerCache.deleteById(cacheKey);
+                    log.info("Removed stale player that no longer exists: {}", uuid);
+                } else {
+                    failedRefreshes.add(cacheKey);
+                    log.info("Serving stale player {}, failed refreshing it: {}", uuid, ex.getMessage());
+                }
+            } catch (Exception ex) {
+                failedRefreshes.add(cacheKey);
+                log.warn("Failed refreshing stale player {}: {}", uuid, ex.getMessage());
+            } finally {
+                refreshing.remove(cacheKey);
+            }
+        }, Constants.VIRTUAL_EXECUTOR);
+    }
 
+    /**
+     * Request the profile of a player from Mojang, and cache it.
+     *
+     * @param query    the original query for the player
+     * @param uuid     the UUID of the player
+     * @param cacheKey the cache key of the player
+     * @param signed   whether the profile is signed
+     * @param priority the priority of the request to Mojang
+     * @return the player
+     * @throws ResourceNotFoundException if the player is not found
+     */
+    @NonNull
+    private CachedPlayer requestPlayer(@NonNull String query, @NonNull UUID uuid, @NonNull String cacheKey, boolean signed,
+                                       @NonNull Priority priority) throws ResourceNotFoundException {
         // Send a request to Mojang requesting
         // the player profile by their UUID
         try {
             log.info("Retrieving player profile for UUID: {}", uuid);
-            String endpoint = UUID_TO_PROFILE.formatted(uuid) + (signed ? "?unsigned=false" : "");
-            MojangProfileToken token = JsonWebRequest.makeRequest(endpoint, HttpMethod.GET).execute(MojangProfileToken.class);
+            String endpoint = MojangServer.SESSION.getEndpoint() + UUID_TO_PROFILE.formatted(uuid) + (signed ? "?unsigned=false" : "");
+            MojangProfileToken token = mojangRateLimiter.execute(MojangServer.SESSION, priority,
+                    () -> JsonWebRequest.makeRequest(endpoint, HttpMethod.GET).execute(MojangProfileToken.class)
+            );
             MojangProfileToken.SkinProperties skinProperties = token.getSkinProperties(); // Get the skin and cape
             ProfileAction[] profileActions = token.getProfileActions();
 
@@ -136,7 +427,7 @@ public final class PlayerService {
                     token.isLegacy(), System.currentTimeMillis()
             );
             // Store in the cache
-            playerCache.save(player);
+            playerCache.save(cacheKey, player);
             log.info("Cached player: {}", uuid);
 
             player.setCached(-1L); // Set to -1 to indicate it's not cached in the response
@@ -144,7 +435,7 @@ public final class PlayerService {
         } catch (JsonWebException ex) {
             // No profile found, return null
             if (ex.getStatusCode() == 204 || ex.getStatusCode() == 400) {
-                throw new ResourceNotFoundException("Player not found with query: %s".formatted(query));
+                throw new ResourceNotFoundException("Player not found with query: %s".formatted(query), ex);
             }
             throw ex;
         }
@@ -220,39 +511,43 @@ public final class PlayerService {
         }
         String cacheKey = "%s-%s-%s-%s".formatted(query.toLowerCase(), part.name(), overlays, size); // The id of the skin part
 
-        // In production, check the cache for the
-        // skin part and return it if it's present
-        CachedSkinPartTexture cached = EnvironmentUtils.isProduction() ? skinPartTextureCache.findById(cacheKey).orElse(null) : null;
-        if (cached != null) {
-            log.info("Found skin part {} in cache: {}", part.name(), cacheKey);
-            return cached.getTexture();
-        }
+        SkinRendererType finalPart = part;
+        int finalSize = size;
+        return skinPartRenders.execute(cacheKey, () -> {
+            // In production, check the cache for the
+            // skin part and return it if it's present
+            CachedSkinPartTexture cached = EnvironmentUtils.isProduction() ? skinPartTextureCache.findById(cacheKey).orElse(null) : null;
+            if (cached != null) {
+                log.info("Found skin part {} in cache: {}", finalPart.name(), cacheKey);
+                return cached.getTexture();
+            }
 
-        Skin skin = null; // The target skin to get the skin part of
-        long before = System.currentTimeMillis();
-        try {
-            skin = getPlayer(query, signed).getSkin(); // Use the player's skin
-        } catch (Exception ignored) {
-            // Simply ignore, and fallback to the default skin
-        }
-        if (skin == null) { // Fallback to the default skin
-            skin = Skin.DEFAULT_STEVE;
-            log.warn("Failed to get skin for player {}, defaulting to Steve", query);
-        } else {
-            log.info("Got skin for player {} in {}ms", query, System.currentTimeMillis() - before);
-        }
-        before = System.currentTimeMillis();
-        BufferedImage texture = part.getRenderer().render(skin, overlays, size); // Render the skin part
-        log.info("Render of skin part took {}ms: {}", System.currentTimeMillis() - before, cacheKey);
+            Skin skin = null; // The target skin to get the skin part of
+            long before = System.currentTimeMillis();
+            try {
+                skin = getPlayer(query, signed).getSkin(); // Use the player's skin
+            } catch (Exception ignored) {
+                // Simply ignore, and fallback to the default skin
+            }
+            if (skin == null) { // Fallback to the default skin
+                skin = Skin.DEFAULT_STEVE;
+                log.warn("Failed to get skin for player {}, defaulting to Steve", query);
+            } else {
+                log.info("Got skin for player {} in {}ms", query, System.currentTimeMillis() - before);
+            }
+            before = System.currentTimeMillis();
+            BufferedImage texture = finalPart.getRenderer().render(skin, overlays, finalSize); // Render the skin part
+            log.info("Render of skin part took {}ms: {}", System.currentTimeMillis() - before, cacheKey);
 
-        byte[] bytes = ImageUtils.toByteArray(texture); // Convert the image into a byte array
-        if (EnvironmentUtils.isProduction()) {
-            CompletableFuture.runAsync(() -> {
-                skinPartTextureCache.save(new CachedSkinPartTexture(cacheKey, bytes)); // Cache the texture
-                log.info("Cached skin part texture: {}", cacheKey);
-            }, Constants.VIRTUAL_EXECUTOR);
-        }
-        return bytes;
+            byte[] bytes = ImageUtils.toByteArray(texture); // Convert the image into a byte array
+            if (EnvironmentUtils.isProduction()) {
+                CompletableFuture.runAsync(() -> {
+                    skinPartTextureCache.save(cacheKey, new CachedSkinPartTexture(cacheKey, bytes)); // Cache the texture
+                    log.info("Cached skin part texture: {}", cacheKey);
+                }, Constants.VIRTUAL_EXECUTOR);
+            }
+            return bytes;
+        });
     }
 
     /**
@@ -268,34 +563,124 @@ public final class PlayerService {
         String originalUsername = username;
         username = username.toLowerCase(); // Lowercase the username
 
+        String finalUsername = username;
+        return uuidLookups.execute(username, () -> lookupUuid(originalUsername, finalUsername));
+    }
+
+    /**
+     * Lookup the UUID of a player by their username,
+     * requesting it from Mojang if it isn't cached.
+     *
+     * @param originalUsername the username as requested
+     * @param username         the lowercase username
+     * @return the player's UUID
+     * @throws ResourceNotFoundException if the player isn't found
+     * @throws MojangRateLimitException  if the Mojang rate limit is reached
+     */
+    @NonNull
+    private UUID lookupUuid(@NonNull String originalUsername, @NonNull String username) throws ResourceNotFoundException, MojangRateLimitException {
         // Check the cache for the player's UUID
         Optional<CachedPlayerName> cached = playerNameCache.findById(username);
         if (cached.isPresent()) { // Respond with the cache if present
             log.info("Found UUID in cache for username {}: {}", originalUsername, cached.get().getUniqueId());
             return cached.get().getUniqueId();
         }
+        return requestUuid(originalUsername, username);
+    }
 
-        // Make a request to Mojang requesting the UUID
-        try {
-            MojangUsernameToUUIDToken token = JsonWebRequest.makeRequest(
-                    USERNAME_TO_UUID.formatted(username), HttpMethod.GET
-            ).execute(MojangUsernameToUUIDToken.class);
+    /**
+     * Request the UUID of a player by their username from
+     * Mojang, unless it's known to not belong to a player.
+     *
+     * @param originalUsername the username as requested
+     * @param username         the lowercase username
+     * @return the player's UUID
+     * @throws ResourceNotFoundException if the player isn't found
+     * @throws MojangRateLimitException  if the Mojang rate limit is reached
+     */
+    @NonNull
+    private UUID requestUuid(@NonNull String originalUsername, @NonNull String username) throws ResourceNotFoundException, MojangRateLimitException {
+        // Check if the username was recently found to be unknown, by us or by another node
+        if (recentlyUnknownNames.getIfPresent(username) != null) {
+            throw new ResourceNotFoundException("Player not found with username: %s".formatted(originalUsername));
+        }
+        if (unknownPlayerNameCache.existsById(username)) {
+            recentlyUnknownNames.put(username, Boolean.TRUE);
+            log.info("Found unknown username in cache: {}", originalUsername);
+            throw new ResourceNotFoundException("Player not found with username: %s".formatted(originalUsername));
+        }
 
-            // Cache the UUID and return it
-            UUID uuid = UUIDUtils.addDashes(token.getId());
-            String finalUsername = username;
-            CompletableFuture.runAsync(() -> {
-                playerNameCache.save(new CachedPlayerName(finalUsername, uuid));
-                log.info("Cached UUID for username {}: {}", finalUsername, uuid);
-            }, Constants.VIRTUAL_EXECUTOR);
-            return uuid;
-        } catch (JsonWebException ex) {
-            if (ex.getStatusCode() == 429) { // Mojang rate limit reached
-                throw new MojangRateLimitException();
-            } else if (ex.getStatusCode() == 404) { // Player not found
-                throw new ResourceNotFoundException("Player not found with username: %s".formatted(originalUsername));
+        // Request the UUID from Mojang, alongside any other usernames being looked up
+        UUID uuid;
+        try {
+            uuid = uuidBatcher.submit(username).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
             throw ex;
         }
+        if (uuid == null) { // Player not found, cache it as unknown
+            recentlyUnknownNames.put(username, Boolean.TRUE);
+            CompletableFuture.runAsync(() -> {
+                unknownPlayerNameCache.save(new CachedUnknownPlayerName(username));
+                log.info("Cached unknown username {}", username);
+            }, Constants.VIRTUAL_EXECUTOR);
+            throw new ResourceNotFoundException("Player not found with username: %s".formatted(originalUsername));
+        }
+
+        // Cache the UUID and return it
+        CompletableFuture.runAsync(() -> {
+            playerNameCache.save(username, new CachedPlayerName(username, uuid));
+            log.info("Cached UUID for username {}: {}", username, uuid);
+        }, Constants.VIRTUAL_EXECUTOR);
+        return uuid;
+    }
+
+    /**
+     * Request the UUIDs of the given usernames from Mojang.
+     *
+     * @param usernames the lowercase usernames
+     * @return the UUIDs, mapped by the lowercase username, missing if not found
+     * @throws MojangRateLimitException if the Mojang rate limit is reached
+     */
+    @NonNull
+    private Map<String, UUID> requestUuids(@NonNull List<String> usernames) throws MojangRateLimitException {
+        log.info("Requesting UUIDs for {} username(s)", usernames.size());
+        MojangUsernameToUUIDToken[] tokens = mojangRateLimiter.execute(MojangServer.API, Priority.INTERACTIVE,
+                () -> JsonWebRequest.makeRequest(MojangServer.API.getEndpoint() + USERNAMES_TO_UUIDS, HttpMethod.POST)
+                        .body(usernames)
+                        .execute(MojangUsernameToUUIDToken[].class)
+        );
+        Map<String, UUID> uuids = new HashMap<>();
+        for (MojangUsernameToUUIDToken token : tokens) {
+            uuids.put(token.getName().toLowerCase(), UUIDUtils.addDashes(token.getId()));
+        }
+        return uuids;
+    }
+
+    /**
+     * Weigh a cached player for the in-process cache.
+     * <p>
+     * The skin is kept both as its PNG bytes,
+     * and decoded into an image (4 bytes a pixel).
+     * </p>
+     *
+     * @param player the cached player
+     * @return the estimated size (in bytes) of the player
+     */
+    private static int weigh(@NonNull CachedPlayer player) {
+        long weight = PLAYER_BASE_WEIGHT;
+        Skin skin = player.getSkin();
+        if (skin.getSkinImage() != null) {
+            weight += skin.getSkinImage().length;
+        }
+        if (skin.getImage() != null) {
+            weight += 4L * skin.getImage().getWidth() * skin.getImage().getHeight();
+        }
+        if (player.getCape() != null && player.getCape().getCapeBytes() != null) {
+            weight += player.getCape().getCapeBytes().length;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
     }
-}
\ No newline at end of file
+}
@@ -27,7 +27,8 @@ public final class S3Service {
     public S3Service(@Value("${storage.s3.endpoint}") String endpoint,
                      @Value("${storage.s3.accessKey}") String accessKey,
                      @Value("${storage.s3.secretKey}") String secretKey,
-                     @Value("${storage.s3.ttl}") int objectCacheTtl
+                     @Value("${storage.s3.ttl}") int objectCacheTtl,
+                     @NonNull BootstrapService bootstrapService
     ) {
         minioClient = MinioClient.builder()
                 .endpoint(endpoint)
@@ -37,7 +38,16 @@ public final class S3Service {
                 .expireAfterWrite(objectCacheTtl, TimeUnit.MINUTES)
                 .build();
 
-        // Create all buckets if they don't exist
+        // Create the buckets alongside the other startup tasks,
+        // skins can't be stored until this has completed
+        bootstrapService.submit("S3 buckets", true, this::createBuckets);
+    }
+
+    /**
+     * Create all buckets if they don't exist.
+     */
+    @SneakyThrows
+    private void createBuckets() {
         for (Bucket bucket : Bucket.values()) {
             if (minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket.getName()).build())) {
                 continue;
@@ -1,23 +1,27 @@
 package cc.restfulmc.api.service;
 
 import cc.restfulmc.api.common.*;
+import cc.restfulmc.api.common.cache.TieredCache;
+import cc.restfulmc.api.common.concurrent.Deadline;
+import cc.restfulmc.api.common.concurrent.SingleFlight;
 import cc.restfulmc.api.common.renderer.impl.server.ServerPreviewRenderer;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.exception.impl.ResourceNotFoundException;
 import cc.restfulmc.api.model.dns.DNSRecord;
 import cc.restfulmc.api.model.dns.impl.ARecord;
 import cc.restfulmc.api.model.dns.impl.SRVRecord;
-import cc.restfulmc.api.model.server.AsnData;
-import cc.restfulmc.api.model.server.GeoLocation;
 import cc.restfulmc.api.model.server.MinecraftServer;
+import cc.restfulmc.api.model.server.NetworkData;
 import cc.restfulmc.api.model.server.ServerPlatform;
 import cc.restfulmc.api.model.server.cache.CachedMinecraftServer;
+import cc.restfulmc.api.model.server.cache.CachedMinecraftServerFailure;
 import cc.restfulmc.api.model.server.cache.CachedMinecraftServerMOTDTexture;
 import cc.restfulmc.api.model.server.java.Favicon;
 import cc.restfulmc.api.model.server.java.JavaMinecraftServer;
 import cc.restfulmc.api.repository.MinecraftServerCacheRepository;
+import cc.restfulmc.api.repository.MinecraftServerFailureCacheRepository;
 import cc.restfulmc.api.repository.MinecraftServerMOTDTextureCacheRepository;
-import com.maxmind.geoip2.model.AsnResponse;
+import jakarta.annotation.PostConstruct;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,8 +29,11 @@ import org.springframework.stereotype.Service;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * @author Braydon
@@ -37,6 +44,16 @@ public final class ServerService {
 
     private static final int MIN_MOTD_TEXTURE_SIZE = 64;
     private static final int MAX_MOTD_TEXTURE_SIZE = 1024;
+    private static final long SERVER_CACHE_TTL = 60L * 1000L; // How long a cached server is fresh for, before it's refreshed
+    private static final long LOOKUP_TIMEOUT = 5000L; // The shared deadline for all stages of a server lookup
+    private static final int MAX_SRV_TARGETS = 3; // The most SRV targets of a server to connect to
+    private static final int MAX_BATCH_SIZE = 1000; // The maximum amount of servers in a batch lookup
+    private static final int MAX_BATCH_CONCURRENCY = 32; // The maximum amount of servers looked up at once in a batch
+    private static final int REFRESH_TOP_SERVERS = 100; // The amount of popular servers to refresh ahead of expiry
+    private static final long REFRESH_MIN_LOOKUPS = 3L; // The minimum lookups for a server to be considered popular
+    private static final long REFRESH_AHEAD = 15L * 1000L; // How long before expiry a popular server is refreshed
+    private static final long REFRESH_RETRY_DELAY = 15L; // The time (in seconds) before a failed refresh is retried
+    private static final int SERVER_BASE_WEIGHT = 2048; // The estimated size (in bytes) of a cached server, without its favicon
 
     /**
      * The MaxMind service to use for Geo lookups.
@@ -44,29 +61,88 @@ public final class ServerService {
     @NonNull private final MaxMindService maxMindService;
 
     /**
-     * The cache repository for {@link MinecraftServer}'s.
+     * The service to resolve DNS records with.
      */
-    @NonNull private final MinecraftServerCacheRepository minecraftServerCache;
+    @NonNull private final DNSService dnsService;
 
     /**
-     * The cache repository for {@link MinecraftServer} MOTD's.
+     * The cache for {@link MinecraftServer}'s.
      */
-    @NonNull private final MinecraftServerMOTDTextureCacheRepository motdTextureCacheRepository;
+    @NonNull private final TieredCache<CachedMinecraftServer> minecraftServerCache;
+
+    /**
+     * The cache repository for failed {@link MinecraftServer} lookups.
+     */
+    @NonNull private final MinecraftServerFailureCacheRepository minecraftServerFailureCache;
+
+    /**
+     * The cache for {@link MinecraftServer} MOTD's.
+     */
+    @NonNull private final TieredCache<CachedMinecraftServerMOTDTexture> motdTextureCache;
 
     /**
      * The Mojang service to use.
      */
     @NonNull private final MojangService mojangService;
 
+    /**
+     * The in-flight server lookups, mapped by their cache key.
+     */
+    private final SingleFlight<String, CachedMinecraftServer> serverLookups = new SingleFlight<>();
+
+    /**
+     * The in-flight MOTD renders, mapped by their cache key.
+     */
+    private final SingleFlight<String, byte[]> motdRenders = new SingleFlight<>();
+
+    /**
+     * The most looked up servers.
+     *
+     * @see #refreshPopularServers() for more
+     */
+    private final HeavyHitters<ServerTarget> popularServers = new HeavyHitters<>(1000);
+
+    /**
+     * The cache keys of the servers currently being refreshed.
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The cache keys of the servers that recently failed
+     * to refresh, and are being served stale until they
+     * can be refreshed, or expire from the cache.
+     */
+    private final ExpiringSet<String> failedRefreshes = new ExpiringSet<>(ExpiringSet.ExpirationPolicy.CREATED, REFRESH_RETRY_DELAY, TimeUnit.SECONDS);
+
     @Autowired
-    public ServerService(@NonNull MaxMindService maxMindService, @NonNull MinecraftServerCacheRepository minecraftServerCache,
-                         @NonNull MinecraftServerMOTDTextureCacheRepository motdTextureCacheRepository, @NonNull MojangService mojangService) {
+    public ServerService(@NonNull MaxMindService maxMindService, @NonNull DNSService dnsService,
+                         @NonNull MinecraftServerCacheRepository minecraftServerCache,
+                         @NonNull MinecraftServerFailureCacheRepository minecraftServerFailureCache,
+                         @NonNull MinecraftServerMOTDTextureCacheRepository motdTextureCacheRepository, @NonNull MojangService mojangService,
+                         @NonNull CacheService cacheService) {
         this.maxMindService = maxMindService;
-        this.minecraftServerCache = minecraftServerCache;
-        this.motdTextureCacheRepository = motdTextureCacheRepository;
+        this.dnsService = dnsService;
+        this.minecraftServerCache = cacheService.newCache(minecraftServerCache, CachedMinecraftServer.class, 32L * 1024L * 1024L,
+                ServerService::weigh, Duration.ofSeconds(30L)
+        );
+        this.minecraftServerFailureCache = minecraftServerFailureCache;
+        this.motdTextureCache = cacheService.newCache(motdTextureCacheRepository, CachedMinecraftServerMOTDTexture.class, 32L * 1024L * 1024L,
+                texture -> texture.getTexture().length, Duration.ofMinutes(1L)
+        );
         this.mojangService = mojangService;
     }
 
+    @PostConstruct
+    public void onInitialize() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("server-refresh").daemon().factory()
+        );
+        // Refresh popular servers shortly before their cache
+        // expires, and let servers that are no longer popular age out
+        scheduler.scheduleAtFixedRate(this::refreshPopularServers, 5L, 5L, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(popularServers::decay, 1L, 1L, TimeUnit.MINUTES);
+    }
+
     /**
      * Resolve a Minecraft server on the given
      * platform with the given hostname.
@@ -84,69 +160,240 @@ public final class ServerService {
         if (platform == null) { // Invalid platform
             throw new BadRequestException("Invalid platform: %s".formatted(platformName));
         }
-        String lookupHostname = hostname; // The hostname used to lookup the server
+        ServerTarget target = ServerTarget.parse(platform, hostname);
+        popularServers.offer(target);
+        return serverLookups.execute(target.getCacheKey(), () -> lookupMinecraftServer(target));
+    }
 
-        int port = platform.getDefaultPort(); // Port to ping
-        if (hostname.contains(":")) { // Hostname contains a port
-            String[] split = hostname.split(":");
-            hostname = split[0];
-            try { // Try and parse the port
-                port = Integer.parseInt(split[1]);
-            } catch (NumberFormatException ex) { // Invalid port
-                throw new BadRequestException("Invalid port defined");
-            }
+    /**
+     * Resolve many Minecraft servers on the
+     * given platform with the given hostnames.
+     * <p>
+     * The servers are looked up by {@link #MAX_BATCH_CONCURRENCY}
+     * workers, and each one is handed to the given callbacks the
+     * moment its lookup finishes, so slow servers don't hold up
+     * fast ones. The callbacks are only ever invoked from a single
+     * writer thread, so a slow consumer never holds up a worker.
+     * Cancelling the returned future stops any lookups not yet started.
+     * </p>
+     *
+     * @param platformName the name of the platform
+     * @param hostnames    the hostnames of the servers
+     * @param onResolved   the callback for a resolved server
+     * @param onFailed     the callback for a failed lookup
+     * @return the future completed once every lookup has been handed to the callbacks
+     * @throws BadRequestException if the platform or batch size is invalid
+     */
+    @NonNull
+    public CompletableFuture<Void> getMinecraftServers(@NonNull String platformName, @NonNull List<String> hostnames,
+                                                       @NonNull BiConsumer<String, CachedMinecraftServer> onResolved,
+                                                       @NonNull BiConsumer<String, Exception> onFailed) throws BadRequestException {
+        if (EnumUtils.getEnumConstant(ServerPlatform.class, platformName.toUpperCase()) == null) { // Invalid platform
+            throw new BadRequestException("Invalid platform: %s".formatted(platformName));
+        }
+        if (hostnames.isEmpty() || hostnames.size() > MAX_BATCH_SIZE) { // Invalid batch size
+            throw new BadRequestException("Invalid batch size. Must be between 1 and " + MAX_BATCH_SIZE);
         }
-        String cacheKey = "%s-%s".formatted(platform.name(), lookupHostname.replace(":", "-"));
+        log.info("Looking up a batch of {} servers...", hostnames.size());
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        BlockingQueue<Runnable> results = new LinkedBlockingQueue<>(); // The callbacks for the writer to run
+        AtomicInteger nextHostname = new AtomicInteger();
+        int workers = Math.min(MAX_BATCH_CONCURRENCY, hostnames.size());
+        AtomicInteger runningWorkers = new AtomicInteger(workers);
+        for (int i = 0; i < workers; i++) {
+            Constants.VIRTUAL_EXECUTOR.execute(() -> {
+                int index;
+                while (!completion.isDone() && (index = nextHostname.getAndIncrement()) < hostnames.size()) {
+                    String hostname = hostnames.get(index);
+                    try {
+                        CachedMinecraftServer server = getMinecraftServer(platformName, hostname);
+                        results.add(() -> onResolved.accept(hostname, server));
+                    } catch (Exception ex) {
+                        results.add(() -> onFailed.accept(hostname, ex));
+                    }
+                }
+                if (runningWorkers.decrementAndGet() == 0) { // The last worker is done, the writer can finish up
+                    results.add(() -> completion.complete(null));
+                }
+            });
+        }
+        Constants.VIRTUAL_EXECUTOR.execute(() -> {
+            while (!completion.isDone()) {
+                try {
+                    results.take().run();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    completion.cancel(false);
+                } catch (Exception ex) {
+                    log.error("Failed handing a batch lookup to its callback:", ex);
+                }
+            }
+        });
+        return completion;
+    }
+
+    /**
+     * Get the longest a batch lookup of the given size
+     * can take, with every lookup running to its deadline.
+     *
+     * @param size the amount of servers in the batch
+     * @return the timeout (in millis)
+     */
+    public long getBatchTimeout(int size) {
+        long waves = (Math.max(size, 1) + MAX_BATCH_CONCURRENCY - 1) / MAX_BATCH_CONCURRENCY;
+        return (waves + 1) * LOOKUP_TIMEOUT;
+    }
+
+    /**
+     * Lookup a Minecraft server, pinging it if
+     * it isn't cached and hasn't recently failed.
+     *
+     * @param target the server to lookup
+     * @return the resolved Minecraft server
+     * @throws ResourceNotFoundException if the server isn't found
+     */
+    @NonNull
+    private CachedMinecraftServer lookupMinecraftServer(@NonNull ServerTarget target) throws ResourceNotFoundException {
+        String hostname = target.hostname();
+        String cacheKey = target.getCacheKey();
 
         // Check the cache for the server
         CachedMinecraftServer cached = EnvironmentUtils.isProduction() ? minecraftServerCache.findById(cacheKey).orElse(null) : null;
         if (cached != null) { // Respond with the cache if present
-            log.info("Found server in cache: {}", hostname);
+            if (System.currentTimeMillis() - cached.getCached() >= SERVER_CACHE_TTL) { // Serve it stale, and refresh it
+                log.info("Found stale server in cache: {}", hostname);
+                refreshServer(target);
+            } else {
+                log.info("Found server in cache: {}", hostname);
+            }
             return cached;
         }
+        // Check the cache for a recent failure to lookup the server
+        CachedMinecraftServerFailure failure = EnvironmentUtils.isProduction() ? minecraftServerFailureCache.findById(cacheKey).orElse(null) : null;
+        if (failure != null) { // Fail right away if the server recently failed
+            log.info("Found server failure in cache: {}", hostname);
+            throw failure.isNotFound() ? new ResourceNotFoundException(failure.getMessage()) : new BadRequestException(failure.getMessage());
+        }
+        try {
+            return pingMinecraftServer(target);
+        } catch (ResourceNotFoundException | BadRequestException ex) {
+            if (EnvironmentUtils.isProduction() && ex.getMessage() != null) { // Cache the failure
+                CachedMinecraftServerFailure newFailure = new CachedMinecraftServerFailure(cacheKey, ex instanceof ResourceNotFoundException, ex.getMessage());
+                CompletableFuture.runAsync(() -> minecraftServerFailureCache.save(newFailure), Constants.VIRTUAL_EXECUTOR);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Resolve the DNS records of a Minecraft server, ping it,
+     * and then cache it along with its ASN and Geo location.
+     *
+     * @param target the server to ping
+     * @return the resolved Minecraft server
+     * @throws ResourceNotFoundException if the server isn't found
+     */
+    @NonNull
+    private CachedMinecraftServer pingMinecraftServer(@NonNull ServerTarget target) throws ResourceNotFoundException {
+        ServerPlatform platform = target.platform();
+        String hostname = target.hostname();
+        int port = target.port();
+        String cacheKey = target.getCacheKey();
+
         List<DNSRecord> records = new ArrayList<>(); // The resolved DNS records for the server
 
-        SRVRecord srvRecord = platform == ServerPlatform.JAVA ? DNSUtils.resolveSRV(hostname) : null; // Resolve the SRV record
-        if (srvRecord != null) { // SRV was resolved, use the hostname and port
+        // Every stage of the lookup, resolving included, is awaited against a shared deadline
+        Deadline deadline = Deadline.in(LOOKUP_TIMEOUT);
+
+        // Resolve the SRV records and the addresses of the hostname at the same time, as the SRV
+        // records usually either don't exist, or point back at the already resolved hostname
+        CompletableFuture<List<SRVRecord>> srvFuture = platform == ServerPlatform.JAVA ? dnsService.resolveSRV(hostname)
+                : CompletableFuture.completedFuture(List.of());
+        CompletableFuture<DNSService.HostAddresses> hostFuture = dnsService.resolveHost(hostname);
+        List<SRVRecord> srvRecords = awaitResolve(deadline, srvFuture);
+
+        // Resolve the addresses of each target, and then collect every
+        // endpoint of the server in the order they should be connected to
+        List<InetSocketAddress> endpoints = new ArrayList<>();
+        DNSService.HostAddresses primaryHost;
+        if (srvRecords.isEmpty()) {
+            primaryHost = awaitResolve(deadline, hostFuture);
+            for (InetAddress address : primaryHost.getOrderedAddresses()) {
+                endpoints.add(new InetSocketAddress(address, port));
+            }
+        } else { // SRV was resolved, use the targets and ports
+            List<SRVRecord> targets = srvRecords.subList(0, Math.min(srvRecords.size(), MAX_SRV_TARGETS));
+            List<CompletableFuture<DNSService.HostAddresses>> targetFutures = new ArrayList<>();
+            for (SRVRecord srvTarget : targets) {
+                targetFutures.add(srvTarget.getTarget().equalsIgnoreCase(hostname) ? hostFuture : dnsService.resolveHost(srvTarget.getTarget()));
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                for (InetAddress address : awaitResolve(deadline, targetFutures.get(i)).getOrderedAddresses()) {
+                    InetSocketAddress endpoint = new InetSocketAddress(address, targets.get(i).getPort());
+                    if (!endpoints.contains(endpoint)) {
+                        endpoints.add(endpoint);
+                    }
+                }
+            }
+            SRVRecord srvRecord = targets.getFirst();
             records.add(srvRecord); // Going to need this for later
-            InetSocketAddress socketAddress = srvRecord.getSocketAddress();
-            hostname = socketAddress.getHostName();
-            port = socketAddress.getPort();
+            primaryHost = awaitResolve(deadline, targetFutures.getFirst());
+            hostname = srvRecord.getTarget();
+            port = srvRecord.getPort();
+        }
+        if (endpoints.isEmpty()) { // Nothing resolved, fallback to the system resolver
+            endpoints.add(new InetSocketAddress(hostname, port));
         }
 
-        ARecord aRecord = DNSUtils.resolveA(hostname); // Resolve the A record so we can get the IPv4 address
-        String ip = aRecord == null ? null : aRecord.getAddress(); // Get the IP address
-        if (ip != null) { // Was the IP resolved?
+        ARecord aRecord = primaryHost.a().isEmpty() ? null : primaryHost.a().getFirst(); // Get the IPv4 address
+        String ip = aRecord != null ? aRecord.getAddress() // Get the IP address, preferring IPv4
+                : primaryHost.aaaa().isEmpty() ? null : primaryHost.aaaa().getFirst().getAddress();
+        if (aRecord != null) {
             records.add(aRecord); // Going to need this for later
-            log.info("Resolved hostname: {} -> {}", hostname, ip);
         }
-        // Attempt to perform a Geo lookup on the server
-        AsnData asn = null;
-        GeoLocation geo = null;
-        try {
-            log.info("Looking up ASN & Geo location data for {}...", ip);
-
-            InetAddress address = InetAddress.getByName(ip == null ? hostname : ip);
-            AsnResponse asnResponse = maxMindService.lookupAsn(address);
-            if (asnResponse != null) {
-                asn = new AsnData(asnResponse.autonomousSystemNumber(), asnResponse.autonomousSystemOrganization(), asnResponse.network().toString());
-            }
-            geo = maxMindService.lookup(address);
-        } catch (Exception ex) {
-            log.error("Failed looking up Geo location data for {}:", ip, ex);
+        if (ip != null) { // Was the IP resolved?
+            log.info("Resolved hostname: {} -> {} ({} endpoint(s))", hostname, ip, endpoints.size());
         }
+        // Lookup the ASN & Geo location data of the server up front (it's an in-memory lookup,
+        // usually cached for the network), the pingers use the ASN to pick timeouts for servers they haven't seen
+        NetworkData network = ip == null ? null : lookupNetwork(ip);
+        Long asn = network == null || network.getAsn() == null ? null : network.getAsn().getNumber();
+
+        // Fan out the independent stages of the lookup, and then fan them back in against the
+        // shared deadline. The ping is interrupted if abandoned, which cancels its engine sessions
+        String finalHostname = hostname;
+        int finalPort = port;
+        Future<? extends MinecraftServer> pingFuture = Constants.VIRTUAL_EXECUTOR.submit(
+                () -> platform.getPinger().ping(finalHostname, ip, finalPort, endpoints, records.toArray(new DNSRecord[0]), asn)
+        );
+        CompletableFuture<Boolean> blockedFuture = platform == ServerPlatform.JAVA ? CompletableFuture.supplyAsync(
+                () -> mojangService.isServerBlocked(finalHostname), Constants.VIRTUAL_EXECUTOR
+        ) : CompletableFuture.completedFuture(false);
 
         // Build our server model, cache it, and then return it
-        MinecraftServer response = platform.getPinger().ping(hostname, ip, port, records.toArray(new DNSRecord[0])); // Ping the server and await a response
+        MinecraftServer response; // Await the ping response
+        try {
+            response = deadline.await(pingFuture);
+        } catch (TimeoutException ex) {
+            response = null;
+        } finally {
+            if (pingFuture.state() != Future.State.SUCCESS) { // The lookup failed, no need for the other stages
+                blockedFuture.cancel(true);
+            }
+        }
         if (response == null) { // No response from ping
             throw new ResourceNotFoundException("Server didn't respond to ping");
         }
-        // Update ASN & Geo location data in the server if present
-        if (asn != null) {
-            response.setAsn(asn);
+        // Update ASN & Geo location data in the server if present, looking
+        // them up again if the server answered on a different address
+        if (response.getIp() != null && !response.getIp().equals(ip)) {
+            network = lookupNetwork(response.getIp());
         }
-        if (geo != null) {
-            response.setGeo(geo);
+        if (network != null && network.getAsn() != null) {
+            response.setAsn(network.getAsn());
+        }
+        if (network != null && network.getGeo() != null) {
+            response.setGeo(network.getGeo());
         }
 
         CachedMinecraftServer minecraftServer = new CachedMinecraftServer(
@@ -154,17 +401,141 @@ public final class ServerService {
         );
         // Get the blocked status of the Java server
         if (platform == ServerPlatform.JAVA) {
-            ((JavaMinecraftServer) minecraftServer.getValue()).setMojangBanned(mojangService.isServerBlocked(hostname));
+            ((JavaMinecraftServer) minecraftServer.getValue()).setMojangBanned(deadline.awaitOrElse(blockedFuture, false));
         }
-        String finalHostname = hostname;
         if (EnvironmentUtils.isProduction()) {
             CompletableFuture.runAsync(() -> {
-                minecraftServerCache.save(minecraftServer);
+                minecraftServerCache.save(cacheKey, minecraftServer);
                 log.info("Cached server: {}", finalHostname);
             }, Constants.VIRTUAL_EXECUTOR);
         }
-        minecraftServer.setCached(-1L); // Set to -1 to indicate it's not cached in the response
-        return minecraftServer;
+        // Respond with a copy marked as not cached (-1), as the original may still be being saved
+        return new CachedMinecraftServer(cacheKey, minecraftServer.getValue(), -1L);
+    }
+
+    /**
+     * Await a DNS resolution against the deadline of a lookup.
+     *
+     * @param deadline the deadline of the lookup
+     * @param future   the future resolution
+     * @return the resolved value
+     * @param <T> the type of resolved value
+     * @throws ResourceNotFoundException if the deadline passes first
+     */
+    @NonNull
+    private static <T> T awaitResolve(@NonNull Deadline deadline, @NonNull CompletableFuture<T> future) throws ResourceNotFoundException {
+        try {
+            return deadline.await(future);
+        } catch (TimeoutException ex) {
+            throw new ResourceNotFoundException("Server didn't resolve in time");
+        }
+    }
+
+    /**
+     * Refresh the most popular servers that are
+     * about to go stale in the cache, so lookups
+     * for them are never served a stale server.
+     * <p>
+     * Servers that aren't cached are left alone, as
+     * they either failed their last lookup, or will
+     * be cached again by the next lookup for them.
+     * </p>
+     */
+    private void refreshPopularServers() {
+        if (!EnvironmentUtils.isProduction()) { // Nothing is cached outside of production
+            return;
+        }
+        try {
+            for (ServerTarget target : popularServers.getTop(REFRESH_TOP_SERVERS, REFRESH_MIN_LOOKUPS)) {
+                String cacheKey = target.getCacheKey();
+                CachedMinecraftServer cached = minecraftServerCache.findById(cacheKey).orElse(null);
+                if (cached == null || (cached.getCached() > 0L
+                        && System.currentTimeMillis() - cached.getCached() < SERVER_CACHE_TTL - REFRESH_AHEAD)) {
+                    continue;
+                }
+                refreshServer(target);
+            }
+        } catch (Exception ex) {
+            log.error("Failed refreshing popular servers:", ex);
+        }
+    }
+
+    /**
+     * Refresh a cached server in the background,
+     * unless it's already being refreshed.
+     * <p>
+     * The refresh doesn't join in-flight lookups for the
+     * server, as those may be serving the stale server.
+     * The server is only removed from the cache if its
+     * hostname no longer exists (NXDOMAIN). Any other
+     * failure (e.g. a ping or DNS timeout) may be transient,
+     * so the stale server keeps being served until it
+     * expires from the cache, and the refresh is retried
+     * after a delay. A failed refresh never caches the
+     * failure, as lookups still have the stale server.
+     * </p>
+     *
+     * @param target the server to refresh
+     */
+    private void refreshServer(@NonNull ServerTarget target) {
+        String cacheKey = target.getCacheKey();
+        if (failedRefreshes.contains(cacheKey) || !refreshing.add(cacheKey)) { // Recently failed, or already being refreshed
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                pingMinecraftServer(target);
+                log.info("Refreshed server: {}", target.lookupHostname());
+            } catch (ResourceNotFoundException | BadRequestException ex) {
+                if (isNonExistent(target)) {
+                    minecraftServerCache.deleteById(cacheKey);
+                    log.info("Removed stale server that no longer exists {}: {}", target.lookupHostname(), ex.getMessage());
+                } else {
+                    failedRefreshes.add(cacheKey);
+                    log.info("Serving stale server {}, failed refreshing it: {}", target.lookupHostname(), ex.getMessage());
+                }
+            } catch (Exception ex) {
+                failedRefreshes.add(cacheKey);
+                log.warn("Failed refreshing server {}: {}", target.lookupHostname(), ex.getMessage());
+            } finally {
+                refreshing.remove(cacheKey);
+            }
+        }, Constants.VIRTUAL_EXECUTOR);
+    }
+
+    /**
+     * Check if the hostname of the given server
+     * definitively no longer exists (NXDOMAIN).
+     *
+     * @param target the server to check
+     * @return whether the hostname no longer exists, false if unsure
+     */
+    private boolean isNonExistent(@NonNull ServerTarget target) {
+        try {
+            return dnsService.isNonExistent(target.hostname(), target.platform() == ServerPlatform.JAVA)
+                    .get(LOOKUP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Lookup the ASN and Geo location data
+     * for the server with the given resolved IP.
+     *
+     * @param ip the ip of the server
+     * @return the ASN and Geo location data, null if the lookup failed
+     */
+    private NetworkData lookupNetwork(@NonNull String ip) {
+        try {
+            return maxMindService.lookupNetwork(ip);
+        } catch (Exception ex) {
+            log.error("Failed looking up Geo location data for {}:", ip, ex);
+            return null;
+        }
     }
 
     /**
@@ -217,21 +588,83 @@ public final class ServerService {
         ServerPlatform platform = Objects.requireNonNull(EnumUtils.getEnumConstant(ServerPlatform.class, platformName.toUpperCase()));
         String cacheKey = "%s-%s-%s-%s".formatted(platform.name(), server.getHostname(), server.getPort(), size);
         log.info("Getting MOTD for server: {}:{} (size {})", server.getHostname(), server.getPort(), size);
-        long before = System.currentTimeMillis();
+        return motdRenders.execute(cacheKey, () -> {
+            long before = System.currentTimeMillis();
 
-        // In production environments, first try the cache and return that if present
-        CachedMinecraftServerMOTDTexture cachedMotdTexture = EnvironmentUtils.isProduction() ? motdTextureCacheRepository.findById(cacheKey).orElse(null) : null;
-        if (cachedMotdTexture != null) {
-            log.info("Found server MOTD {}:{} from cache in {}ms", server.getHostname(), server.getPort(), System.currentTimeMillis() - before);
-            return cachedMotdTexture.getTexture();
+            // In production environments, first try the cache and return that if present
+            CachedMinecraftServerMOTDTexture cachedMotdTexture = EnvironmentUtils.isProduction() ? motdTextureCache.findById(cacheKey).orElse(null) : null;
+            if (cachedMotdTexture != null) {
+                log.info("Found server MOTD {}:{} from cache in {}ms", server.getHostname(), server.getPort(), System.currentTimeMillis() - before);
+                return cachedMotdTexture.getTexture();
+            }
+            // Render the server MOTD and cache it
+            byte[] motd = ImageUtils.toByteArray(ServerPreviewRenderer.INSTANCE.render(server, size));
+            if (EnvironmentUtils.isProduction()) {
+                CompletableFuture.runAsync(() -> {
+                    motdTextureCache.save(cacheKey, new CachedMinecraftServerMOTDTexture(cacheKey, motd));
+                }, Constants.VIRTUAL_EXECUTOR);
+            }
+            return motd;
+        });
+    }
+
+    /**
+     * Weigh a cached server for the in-process cache.
+     *
+     * @param server the cached server
+     * @return the estimated size (in bytes) of the server
+     */
+    private static int weigh(@NonNull CachedMinecraftServer server) {
+        int weight = SERVER_BASE_WEIGHT;
+        if (server.getValue() instanceof JavaMinecraftServer javaServer && javaServer.getFavicon() != null) {
+            weight += javaServer.getFavicon().getBase64().length();
         }
-        // Render the server MOTD and cache it
-        byte[] motd = ImageUtils.toByteArray(ServerPreviewRenderer.INSTANCE.render(server, size));
-        if (EnvironmentUtils.isProduction()) {
-            CompletableFuture.runAsync(() -> {
-                motdTextureCacheRepository.save(new CachedMinecraftServerMOTDTexture(cacheKey, motd));
-            }, Constants.VIRTUAL_EXECUTOR);
+        return weight;
+    }
+
+    /**
+     * A server to lookup.
+     *
+     * @param platform       the platform of the server
+     * @param lookupHostname the hostname (and optional port) as requested
+     * @param hostname       the hostname of the server
+     * @param port           the port of the server
+     */
+    private record ServerTarget(@NonNull ServerPlatform platform, @NonNull String lookupHostname, @NonNull String hostname, int port) {
+        /**
+         * Parse the server to lookup from the given
+         * hostname, with an optional port appended.
+         *
+         * @param platform the platform of the server
+         * @param hostname the hostname (and optional port) of the server
+         * @return the server to lookup
+         * @throws BadRequestException if the port is invalid
+         */
+        @NonNull
+        private static ServerTarget parse(@NonNull ServerPlatform platform, @NonNull String hostname) throws BadRequestException {
+            String lookupHostname = hostname; // The hostname used to lookup the server
+
+            int port = platform.getDefaultPort(); // Port to ping
+            if (hostname.contains(":")) { // Hostname contains a port
+                String[] split = hostname.split(":");
+                hostname = split[0];
+                try { // Try and parse the port
+                    port = Integer.parseInt(split[1]);
+                } catch (NumberFormatException ex) { // Invalid port
+                    throw new BadRequestException("Invalid port defined");
+                }
+            }
+            return new ServerTarget(platform, lookupHostname, hostname, port);
+        }
+
+        /**
+         * Get the cache key of this server.
+         *
+         * @return the cache key
+         */
+        @NonNull
+        private String getCacheKey() {
+            return "%s-%s".formatted(platform.name(), lookupHostname.replace(":", "-"));
         }
-        return motd;
     }
-}
\ No newline at end of file
+}
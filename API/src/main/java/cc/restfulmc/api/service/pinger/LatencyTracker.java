@@ -0,0 +1,153 @@
+package cc.restfulmc.api.service.pinger;
+
+import cc.restfulmc.api.common.LatencyHistogram;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the observed latency of pings, both per endpoint
+ * and per ASN, and derives ping timeouts from them.
+ * <p>
+ * A target's timeout is derived from the p99 of its own
+ * latencies. Targets we haven't seen enough of fall back
+ * to their ASN's latencies, and then to a fixed timeout.
+ * This way dead servers in a well known network fail fast,
+ * while far-away servers aren't cut off too early.
+ * </p>
+ * <p>
+ * Timed out pings are recorded at their timeout, so a target
+ * that slows down pushes its p99 (and timeout) back up, and
+ * histograms expire a while after they were created, rather
+ * than last used, so a stale history is always re-learned.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class LatencyTracker {
+    private static final int MIN_ENDPOINT_SAMPLES = 5; // The samples required to trust an endpoint's latencies
+    private static final int MIN_ASN_SAMPLES = 20; // The samples required to trust an ASN's latencies
+
+    /**
+     * The latencies of each endpoint.
+     */
+    private final Cache<String, LatencyHistogram> endpoints = CacheBuilder.newBuilder()
+            .maximumSize(10_000L)
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * The latencies of each ASN.
+     */
+    private final Cache<Long, LatencyHistogram> asns = CacheBuilder.newBuilder()
+            .maximumSize(5_000L)
+            .expireAfterWrite(6L, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * The smallest timeout to hand out.
+     */
+    private final long minTimeout;
+
+    /**
+     * The largest timeout to hand out.
+     */
+    private final long maxTimeout;
+
+    /**
+     * The timeout to hand out for unknown targets.
+     */
+    private final long defaultTimeout;
+
+    public LatencyTracker(long minTimeout, long maxTimeout, long defaultTimeout) {
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * Record the latency of a successful ping.
+     *
+     * @param endpoint the endpoint that was pinged
+     * @param asn      the ASN of the endpoint, null if unknown
+     * @param millis   the latency (in millis)
+     */
+    @SneakyThrows
+    public void record(@NonNull String endpoint, Long asn, long millis) {
+        endpoints.get(endpoint, LatencyHistogram::new).record(millis);
+        if (asn != null) {
+            asns.get(asn, LatencyHistogram::new).record(millis);
+        }
+    }
+
+    /**
+     * Record a ping that timed out, as a sample at its timeout.
+     *
+     * @param endpoint the endpoint that was pinged
+     * @param asn      the ASN of the endpoint, null if unknown
+     * @param timeout  the timeout (in millis) the ping was given
+     */
+    public void recordTimeout(@NonNull String endpoint, Long asn, int timeout) {
+        record(endpoint, asn, timeout);
+    }
+
+    /**
+     * Get the timeout to retry a timed out ping with, if its
+     * timeout was learned to be shorter than the default, as
+     * the target may have just slowed down, rather than died.
+     *
+     * @param timeout the timeout (in millis) the ping was given
+     * @return the retry timeout (in millis), -1 if the ping shouldn't be retried
+     */
+    public int getRetryTimeout(int timeout) {
+        return timeout < defaultTimeout ? (int) defaultTimeout : -1;
+    }
+
+    /**
+     * Check if the given failure of a ping, along with
+     * the failures of any other addresses suppressed
+     * in it, includes an address that timed out.
+     *
+     * @param ex the failure
+     * @return whether an address timed out
+     */
+    public static boolean isTimeout(@NonNull Throwable ex) {
+        if (ex instanceof SocketTimeoutException) {
+            return true;
+        }
+        for (Throwable suppressed : ex.getSuppressed()) {
+            if (suppressed instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the timeout to use for pinging the given target.
+     *
+     * @param endpoint the endpoint to ping
+     * @param asn      the ASN of the endpoint, null if unknown
+     * @return the timeout (in millis)
+     */
+    public int getTimeout(@NonNull String endpoint, Long asn) {
+        LatencyHistogram histogram = endpoints.getIfPresent(endpoint);
+        if (histogram == null || histogram.getSamples() < MIN_ENDPOINT_SAMPLES) { // Fallback to the ASN
+            histogram = asn == null ? null : asns.getIfPresent(asn);
+            if (histogram != null && histogram.getSamples() < MIN_ASN_SAMPLES) {
+                histogram = null;
+            }
+        }
+        if (histogram == null) { // We don't know enough about this target
+            return (int) defaultTimeout;
+        }
+        // Give the p99 plenty of headroom, jitter on the
+        // internet is bursty, and a false timeout costs a server
+        long timeout = histogram.getPercentile(0.99D) * 2L + 100L;
+        return (int) Math.clamp(timeout, minTimeout, maxTimeout);
+    }
+}
@@ -4,6 +4,9 @@ import cc.restfulmc.api.model.dns.DNSRecord;
 import cc.restfulmc.api.model.server.MinecraftServer;
 import lombok.NonNull;
 
+import java.net.InetSocketAddress;
+import java.util.List;
+
 /**
  * A {@link MinecraftServerPinger} is
  * used to ping a {@link MinecraftServer}.
@@ -15,11 +18,14 @@ public interface MinecraftServerPinger<T extends MinecraftServer> {
     /**
      * Ping the server with the given hostname and port.
      *
-     * @param hostname the hostname of the server
-     * @param ip       the ip of the server, null if unresolved
-     * @param port     the port of the server
-     * @param records the DNS records of the server
-     * @return the server that was pinged
+     * @param hostname  the hostname of the server
+     * @param ip        the ip of the server, null if unresolved
+     * @param port      the port of the server
+     * @param addresses the resolved addresses of the server, in the order to connect to them
+     * @param records   the DNS records of the server
+     * @param asn       the ASN of the server, null if unknown
+     * @return the server that was pinged, with the IP of the address that answered
      */
-    T ping(@NonNull String hostname, String ip, int port, @NonNull DNSRecord[] records);
+    T ping(@NonNull String hostname, String ip, int port, @NonNull List<InetSocketAddress> addresses,
+           @NonNull DNSRecord[] records, Long asn);
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+package cc.restfulmc.api.service.pinger.engine;
+
+import cc.restfulmc.api.common.packet.impl.bedrock.BedrockUnconnectedPingPacket;
+import cc.restfulmc.api.common.packet.impl.bedrock.BedrockUnconnectedPongPacket;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A non-blocking engine for pinging Bedrock
+ * Minecraft servers using RakNet unconnected pings.
+ * <p>
+ * Every ping is sent from a single shared {@link DatagramChannel},
+ * and pongs are matched back to their ping by the ping time they
+ * echo, which is unique to each ping. Unanswered pings are re-sent
+ * with an exponential backoff until they time out, as UDP gives no
+ * guarantee that either the ping or the pong arrives. Pings are kept
+ * ordered by when they're next due a re-send or time out, so the loop
+ * only looks at the pings that are due, and sleeps until the next one.
+ * </p>
+ *
+ * @author Braydon
+ * @see <a href="https://wiki.vg/Raknet_Protocol#Unconnected_Ping">Protocol Docs</a>
+ */
+@Log4j2(topic = "Bedrock Ping Engine")
+public final class BedrockPingEngine implements Runnable {
+    /**
+     * The shared engine instance.
+     */
+    public static final BedrockPingEngine INSTANCE = new BedrockPingEngine();
+
+    private static final long INITIAL_RETRY_DELAY = 250L; // The delay before the first re-send of an unanswered ping
+    private static final int MAX_DATAGRAM_SIZE = 2048; // The largest pong we'll receive
+
+    /**
+     * The GUID of this client, sent with every ping.
+     */
+    private final long clientGuid = ThreadLocalRandom.current().nextLong();
+
+    /**
+     * The next unique ping time to use.
+     * <p>
+     * This starts at the current time, as it's sent as the
+     * ping timestamp, and increments for each ping so that
+     * every in-flight ping can be told apart by its pong.
+     * </p>
+     */
+    @NonNull private final AtomicLong nextPingTime = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * The selector for the shared channel.
+     */
+    @NonNull private final Selector selector;
+
+    /**
+     * The shared channel pings are sent from.
+     */
+    @NonNull private final DatagramChannel channel;
+
+    /**
+     * Pings waiting to be sent for the first time.
+     */
+    @NonNull private final Queue<PingSession> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The in-flight pings, mapped by their ping time.
+     */
+    @NonNull private final Map<Long, PingSession> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The sent pings, ordered by when they're next
+     * due a re-send or time out, only touched by the loop.
+     */
+    @NonNull private final PriorityQueue<PingSession> due = new PriorityQueue<>(Comparator.comparingLong(session -> session.dueAt));
+
+    /**
+     * Whether the loop has been woken up since it last
+     * drained its pending pings, so pings don't wake it again.
+     */
+    @NonNull private final AtomicBoolean wokenUp = new AtomicBoolean();
+
+    /**
+     * The buffer pongs are received into, only touched by the loop.
+     */
+    @NonNull private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+
+    /**
+     * The buffer pings are written into, only touched by the loop.
+     */
+    @NonNull private final ByteBuffer sendBuffer = ByteBuffer.allocate(BedrockUnconnectedPingPacket.SIZE);
+
+    private BedrockPingEngine() {
+        try {
+            selector = Selector.open();
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(null);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open the Bedrock ping channel", ex);
+        }
+        Thread thread = new Thread(this, "bedrock-ping-loop");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Started Bedrock ping loop on {}", channel.socket().getLocalSocketAddress());
+    }
+
+    /**
+     * Ping the server at the given address and
+     * retrieve the server ID string from its pong.
+     *
+     * @param address the resolved address of the server
+     * @param timeout the timeout (in millis) for the whole ping
+     * @return the future server ID string
+     */
+    @NonNull
+    public CompletableFuture<String> ping(@NonNull InetSocketAddress address, int timeout) {
+        if (address.isUnresolved()) { // We can't send to an unresolved address
+            return CompletableFuture.failedFuture(new UnknownHostException(address.getHostString()));
+        }
+        PingSession session = new PingSession(address, nextPingTime.getAndIncrement(), System.currentTimeMillis() + timeout);
+        inFlight.put(session.pingTime, session);
+        session.future.whenComplete((response, ex) -> {
+            if (session.future.isCancelled()) { // Abandoned, stop matching pongs to it
+                inFlight.remove(session.pingTime);
+            }
+        });
+        pending.add(session);
+        if (wokenUp.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+        return session.future;
+    }
+
+    @Override
+    public void run() {
+        while (selector.isOpen()) {
+            try {
+                wokenUp.set(false); // Anything queued after this wakes the select below
+                PingSession session;
+                while ((session = pending.poll()) != null) {
+                    if (!session.future.isCancelled()) { // Skip pings abandoned before they were sent
+                        send(session);
+                        schedule(session);
+                    }
+                }
+                PingSession next = due.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1L, next.dueAt - System.currentTimeMillis()));
+                }
+                selector.selectedKeys().clear();
+                receive();
+                retryOrExpireSessions();
+            } catch (Exception ex) {
+                log.error("Unexpected error in Bedrock ping loop:", ex);
+            }
+        }
+    }
+
+    /**
+     * Send the ping for the given session, and
+     * schedule its next re-send with backoff.
+     *
+     * @param session the session to send the ping for
+     */
+    private void send(@NonNull PingSession session) {
+        try {
+            sendBuffer.clear();
+            new BedrockUnconnectedPingPacket(session.pingTime, clientGuid).write(sendBuffer);
+            if (channel.send(sendBuffer.flip(), session.address) == 0) { // The send buffer is full, try again shortly
+                session.nextSendAt = System.currentTimeMillis() + 1L;
+                return;
+            }
+            session.attempts++;
+            session.nextSendAt = System.currentTimeMillis() + (INITIAL_RETRY_DELAY << (session.attempts - 1));
+        } catch (IOException ex) {
+            complete(session, null, ex);
+        }
+    }
+
+    /**
+     * Receive and handle all pongs waiting on the channel.
+     */
+    private void receive() throws IOException {
+        SocketAddress sender;
+        while ((sender = channel.receive(receiveBuffer.clear())) != null) {
+            BedrockUnconnectedPongPacket pong = new BedrockUnconnectedPongPacket();
+            try {
+                pong.read(receiveBuffer.flip());
+            } catch (IOException ex) {
+                log.debug("Ignoring invalid datagram from {}: {}", sender, ex.getMessage());
+                continue;
+            }
+            PingSession session = inFlight.get(pong.getPingTime());
+            if (session == null || !session.address.equals(sender)) { // Late, duplicate, or spoofed pong
+                continue;
+            }
+            log.info("Received pong from {} in {}ms ({} attempt(s))", sender,
+                    System.currentTimeMillis() - session.started, session.attempts
+            );
+            complete(session, pong.getResponse(), null);
+        }
+    }
+
+    /**
+     * Re-send the pings that are due a retry, and fail the
+     * pings that have passed their deadline. Pings that have
+     * completed (or were abandoned) are dropped once they're due.
+     */
+    private void retryOrExpireSessions() {
+        long now = System.currentTimeMillis();
+        PingSession session;
+        while ((session = due.peek()) != null && now >= session.dueAt) {
+            due.poll();
+            if (session.future.isDone()) { // Answered, failed, or abandoned
+                continue;
+            }
+            if (now >= session.deadline) {
+                complete(session, null, new SocketTimeoutException("Pong timed out after %s attempt(s)".formatted(session.attempts)));
+                continue;
+            }
+            send(session);
+            schedule(session);
+        }
+    }
+
+    /**
+     * Queue the given ping for its next re-send or time out.
+     *
+     * @param session the ping to queue
+     */
+    private void schedule(@NonNull PingSession session) {
+        if (session.future.isDone()) { // The send failed
+            return;
+        }
+        session.dueAt = Math.min(session.nextSendAt, session.deadline);
+        due.add(session);
+    }
+
+    /**
+     * Complete the given session.
+     *
+     * @param session  the session to complete
+     * @param response the server ID string, null if failed
+     * @param cause    the cause of the failure, null if successful
+     */
+    private void complete(@NonNull PingSession session, String response, Throwable cause) {
+        inFlight.remove(session.pingTime);
+        if (cause != null) {
+            session.future.completeExceptionally(cause);
+        } else {
+            session.future.complete(response);
+        }
+    }
+
+    /**
+     * A single in-flight ping.
+     */
+    private static final class PingSession {
+        /**
+         * The address being pinged.
+         */
+        @NonNull private final InetSocketAddress address;
+
+        /**
+         * The unique ping time of this ping.
+         */
+        private final long pingTime;
+
+        /**
+         * The unix timestamp this ping times out at.
+         */
+        private final long deadline;
+
+        /**
+         * The future completed with the server ID string.
+         */
+        @NonNull private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        /**
+         * The unix timestamp this ping was started at.
+         */
+        private final long started = System.currentTimeMillis();
+
+        /**
+         * The amount of times this ping has been sent.
+         */
+        private int attempts;
+
+        /**
+         * The unix timestamp this ping is next (re-)sent at, 0 if not yet picked up.
+         */
+        private long nextSendAt;
+
+        /**
+         * The unix timestamp this ping is next due a re-send or time out
+         * at, only changed while it's out of the queue of due pings.
+         */
+        private long dueAt;
+
+        private PingSession(@NonNull InetSocketAddress address, long pingTime, long deadline) {
+            this.address = address;
+            this.pingTime = pingTime;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package cc.restfulmc.api.service.pinger.engine;
+
+import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.packet.BufferPool;
+import cc.restfulmc.api.common.packet.ServerboundPacket;
+import cc.restfulmc.api.common.packet.TCPPacket;
+import cc.restfulmc.api.common.packet.impl.java.tcp.JavaHandshakingInSetProtocolPacket;
+import cc.restfulmc.api.common.packet.impl.java.tcp.JavaLegacyServerListPingPacket;
+import cc.restfulmc.api.common.packet.impl.java.tcp.JavaStatusInStartPacket;
+import cc.restfulmc.api.model.token.server.GenericJavaServerStatusToken;
+import cc.restfulmc.api.model.token.server.LegacyJavaServerStatusToken;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking, {@link Selector} based engine for pinging
+ * Java Minecraft servers using the status protocol.
+ * <p>
+ * A small number of event loop threads drive the connect,
+ * handshake, status request and status response of every
+ * in-flight ping, so thousands of pings can be in progress
+ * without parking a thread (and a socket) for each of them.
+ * Each loop keeps its pings ordered by deadline, so expiring
+ * them only looks at the pings that are due, and the loop
+ * sleeps until the next deadline.
+ * </p>
+ * <p>
+ * A legacy (pre-1.7) server that answers the modern
+ * handshake with a 0xFF kick has the kick parsed as a
+ * legacy response on the spot, so it costs a single
+ * round-trip. Servers that drop the connection instead
+ * fail with an {@link IOException}, and the pinger falls
+ * back to a legacy ping.
+ * </p>
+ *
+ * @author Braydon
+ * @see <a href="https://wiki.vg/Server_List_Ping">Server List Ping</a>
+ */
+@Log4j2(topic = "Java Ping Engine")
+public final class JavaPingEngine {
+    /**
+     * The shared engine instance.
+     */
+    public static final JavaPingEngine INSTANCE = new JavaPingEngine(Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4));
+
+    /**
+     * The event loops driving pings.
+     */
+    @NonNull private final EventLoop[] loops;
+
+    /**
+     * The index of the next loop to hand a ping to.
+     */
+    @NonNull private final AtomicInteger nextLoop = new AtomicInteger();
+
+    private JavaPingEngine(int threads) {
+        loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        log.info("Started {} ping event loop(s)", threads);
+    }
+
+    /**
+     * Ping the server at the given address
+     * and retrieve its status token.
+     * <p>
+     * If the server turns out to be a legacy server and
+     * replies with a legacy status kick, the legacy status
+     * is returned. If it replies with a regular kick, the
+     * future fails with a {@link LegacyProtocolException}.
+     * </p>
+     *
+     * @param address         the resolved address of the server
+     * @param hostname        the hostname to send in the handshake
+     * @param port            the port to send in the handshake
+     * @param protocolVersion the protocol version to send in the handshake
+     * @param timeout         the timeout (in millis) for the whole ping
+     * @return the future status token
+     */
+    @NonNull
+    public CompletableFuture<GenericJavaServerStatusToken> ping(@NonNull InetSocketAddress address, @NonNull String hostname, int port,
+                                                                int protocolVersion, int timeout) {
+        return submit(address, encodeRequest(new JavaHandshakingInSetProtocolPacket(hostname, port, protocolVersion), new JavaStatusInStartPacket()), false, timeout);
+    }
+
+    /**
+     * Ping the server at the given address using the legacy
+     * server list ping protocol and retrieve its status token.
+     *
+     * @param address the resolved address of the server
+     * @param timeout the timeout (in millis) for the whole ping
+     * @return the future status token
+     * @see JavaLegacyServerListPingPacket for the legacy protocol
+     */
+    @NonNull
+    public CompletableFuture<GenericJavaServerStatusToken> pingLegacy(@NonNull InetSocketAddress address, int timeout) {
+        return submit(address, encodeRequest(new JavaLegacyServerListPingPacket()), true, timeout);
+    }
+
+    /**
+     * Submit a ping to one of the event loops.
+     *
+     * @param address the resolved address of the server
+     * @param request the encoded request to send
+     * @param legacy  whether this is a legacy ping
+     * @param timeout the timeout (in millis) for the whole ping
+     * @return the future status token
+     */
+    @NonNull
+    private CompletableFuture<GenericJavaServerStatusToken> submit(@NonNull InetSocketAddress address, @NonNull ByteBuffer request,
+                                                                   boolean legacy, int timeout) {
+        if (address.isUnresolved()) { // We can't connect to an unresolved address
+            return CompletableFuture.failedFuture(new UnknownHostException(address.getHostString()));
+        }
+        PingSession session = new PingSession(address, request, legacy, System.currentTimeMillis() + timeout);
+        EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+        loop.submit(session);
+
+        // Parse the response off of the event loop
+        CompletableFuture<GenericJavaServerStatusToken> future = session.future.thenApplyAsync(response -> {
+            try {
+                return toStatusToken(response, legacy);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, Constants.VIRTUAL_EXECUTOR);
+        future.whenComplete((token, ex) -> {
+            if (!future.isCancelled()) {
+                return;
+            }
+            if (session.future.cancel(false)) { // Abandon the ping, the event loop will close it
+                loop.abandon(session);
+            } else if (session.future.state() == Future.State.SUCCESS) { // The response arrived, but won't be parsed
+                session.future.resultNow().release();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Convert the raw response from a server into a
+     * status token, releasing the response buffer.
+     *
+     * @param response the raw response
+     * @param legacy   whether the response is for a legacy ping
+     * @return the status token
+     * @throws IOException if the response is invalid
+     * @throws LegacyProtocolException if a modern ping was kicked by a legacy server
+     */
+    @NonNull
+    private static GenericJavaServerStatusToken toStatusToken(@NonNull RawResponse response, boolean legacy) throws IOException {
+        if (!response.claim()) { // Already released, the ping was abandoned
+            throw new CancellationException();
+        }
+        try {
+            if (!response.legacy()) {
+                JavaStatusInStartPacket statusPacket = new JavaStatusInStartPacket();
+                statusPacket.read(response.frame());
+                return statusPacket.getResponse();
+            }
+            String kickMessage = JavaLegacyServerListPingPacket.readKickMessage(response.frame());
+            if (!legacy && !JavaLegacyServerListPingPacket.isStatusResponse(kickMessage)) {
+                throw new LegacyProtocolException(kickMessage);
+            }
+            JavaLegacyServerListPingPacket legacyPingPacket = new JavaLegacyServerListPingPacket();
+            legacyPingPacket.readResponse(kickMessage);
+            return LegacyJavaServerStatusToken.create(legacyPingPacket);
+        } finally {
+            BufferPool.INSTANCE.release(response.buffer());
+        }
+    }
+
+    /**
+     * Encode the given packets into
+     * a single buffer ready to send.
+     *
+     * @param packets the packets to encode
+     * @return the encoded request
+     */
+    @NonNull
+    private static ByteBuffer encodeRequest(@NonNull ServerboundPacket... packets) {
+        int size = 0;
+        for (ServerboundPacket packet : packets) {
+            size += packet.getMaxSize();
+        }
+        ByteBuffer request = ByteBuffer.allocate(size);
+        for (ServerboundPacket packet : packets) {
+            packet.write(request);
+        }
+        return request.flip();
+    }
+
+    /**
+     * A single in-flight ping.
+     */
+    private static final class PingSession {
+        /**
+         * The address being pinged.
+         */
+        @NonNull private final InetSocketAddress address;
+
+        /**
+         * The encoded request to send to the server.
+         */
+        @NonNull private final ByteBuffer request;
+
+        /**
+         * Whether this is a legacy ping.
+         */
+        private final boolean legacy;
+
+        /**
+         * The unix timestamp this ping times out at.
+         */
+        private final long deadline;
+
+        /**
+         * The future completed with the raw response.
+         */
+        @NonNull private final CompletableFuture<RawResponse> future = new CompletableFuture<>();
+
+        /**
+         * The unix timestamp this ping was started at.
+         */
+        private final long started = System.currentTimeMillis();
+
+        /**
+         * The channel connected to the server, null if not yet opened.
+         */
+        private SocketChannel channel;
+
+        /**
+         * The key of the channel in the selector, null if not yet registered.
+         */
+        private SelectionKey key;
+
+        /**
+         * The pooled buffer holding the response
+         * received so far, null if not yet acquired.
+         */
+        private ByteBuffer response;
+
+        /**
+         * The total length of the response frame, -1 if not yet known.
+         */
+        private int frameLength = -1;
+
+        /**
+         * Whether the response is a legacy kick frame.
+         */
+        private boolean legacyFrame;
+
+        private PingSession(@NonNull InetSocketAddress address, @NonNull ByteBuffer request, boolean legacy, long deadline) {
+            this.address = address;
+            this.request = request;
+            this.legacy = legacy;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Attempt to decode the response from the
+         * data that has been received so far.
+         * <p>
+         * A response starting with 0xFF is told apart from a
+         * modern frame with a 0xFF length byte by the kick's
+         * length field: it's a positive short, so its first
+         * byte has no continuation bit, meaning a modern frame
+         * would have its packet ID (0x00) right after it. A
+         * non-zero byte there can only be the low byte of the
+         * kick length, and if it is zero, the following byte
+         * settles it, as it's the high byte of the kick's first
+         * character (0x00, for the § or any latin character),
+         * but the first byte of the JSON length of a modern
+         * frame (never 0x00).
+         * </p>
+         *
+         * @return the raw response, null if incomplete
+         * @throws IOException if the response is invalid
+         */
+        private RawResponse decode() throws IOException {
+            ByteBuffer received = response.duplicate().flip();
+            if (frameLength == -1) {
+                if (received.remaining() < 1) { // Not enough data yet
+                    return null;
+                }
+                int packetId = received.get(0) & 0xFF;
+                if (legacy && packetId != JavaLegacyServerListPingPacket.KICK_PACKET_ID) { // Invalid packet ID
+                    throw new IOException("Invalid packet ID (0x" + Integer.toHexString(packetId) + "), expected 0xFF.");
+                }
+                if (packetId == JavaLegacyServerListPingPacket.KICK_PACKET_ID) {
+                    if (received.remaining() < (legacy ? 3 : 4)) { // Not enough data yet
+                        return null;
+                    }
+                    short kickLength = received.getShort(1); // The string length (in UTF-16 code units)
+                    legacyFrame = legacy || (kickLength > 0 && (received.get(2) != 0x00 || received.get(3) == 0x00));
+                }
+                if (legacyFrame) {
+                    int length = received.getShort(1);
+                    if (length <= 0) {
+                        throw new IOException("Invalid string length.");
+                    }
+                    frameLength = 3 + length * 2;
+                } else {
+                    int length = TCPPacket.readVarInt(received); // Size of the response
+                    if (length == -1) { // Not enough data yet
+                        return null;
+                    }
+                    if (length <= 0 || length > TCPPacket.MAX_PACKET_SIZE) {
+                        throw new IOException("Server returned an invalid response length (%s)".formatted(length));
+                    }
+                    frameLength = received.position() + length;
+                }
+                if (response.capacity() < frameLength) { // Grow the buffer to fit the whole frame
+                    response = BufferPool.INSTANCE.grow(response, frameLength);
+                }
+            }
+            if (response.position() < frameLength) { // Not enough data yet
+                return null;
+            }
+            // Hand the buffer over to the response, it's released once parsed
+            ByteBuffer buffer = response;
+            response = null;
+            ByteBuffer frame = buffer.slice(0, frameLength);
+            if (!legacyFrame) { // Skip the size of the response
+                TCPPacket.readVarInt(frame);
+            }
+            return new RawResponse(buffer, frame, legacyFrame);
+        }
+
+        /**
+         * Fail this ping and close its channel.
+         *
+         * @param cause the cause of the failure
+         */
+        private void fail(@NonNull Throwable cause) {
+            if (key != null) {
+                key.cancel();
+            }
+            close();
+            if (response != null) {
+                BufferPool.INSTANCE.release(response);
+                response = null;
+            }
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * Close the channel for this ping, if open.
+         */
+        private void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Safely ignore, we're done with the channel
+            }
+        }
+    }
+
+    /**
+     * An event loop driving pings
+     * through a single {@link Selector}.
+     */
+    private static final class EventLoop implements Runnable {
+        /**
+         * The selector for this loop.
+         */
+        @NonNull private final Selector selector;
+
+        /**
+         * Pings waiting to be registered with the selector.
+         */
+        @NonNull private final Queue<PingSession> pending = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Pings abandoned by their caller, waiting to be closed.
+         */
+        @NonNull private final Queue<PingSession> abandoned = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The registered pings, ordered by their deadline. Pings
+         * that have already completed are dropped once they're due.
+         */
+        @NonNull private final PriorityQueue<PingSession> deadlines = new PriorityQueue<>(Comparator.comparingLong(session -> session.deadline));
+
+        /**
+         * Whether this loop has been woken up since it last
+         * drained its queues, so submitters don't wake it again.
+         */
+        @NonNull private final AtomicBoolean wokenUp = new AtomicBoolean();
+
+        private EventLoop(int index) {
+            try {
+                selector = Selector.open();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to open selector", ex);
+            }
+            Thread thread = new Thread(this, "java-ping-loop-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Submit a ping to this loop.
+         *
+         * @param session the ping to submit
+         */
+        private void submit(@NonNull PingSession session) {
+            pending.add(session);
+            wakeup();
+        }
+
+        /**
+         * Close a ping abandoned by its caller.
+         *
+         * @param session the abandoned ping
+         */
+        private void abandon(@NonNull PingSession session) {
+            abandoned.add(session);
+            wakeup();
+        }
+
+        /**
+         * Wake this loop up, unless it has already been
+         * woken up since it last drained its queues.
+         */
+        private void wakeup() {
+            if (wokenUp.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (selector.isOpen()) {
+                try {
+                    wokenUp.set(false); // Anything queued after this wakes the select below
+                    registerPending();
+                    closeAbandoned();
+                    PingSession next = deadlines.peek();
+                    if (next == null) {
+                        selector.select();
+                    } else {
+                        selector.select(Math.max(1L, next.deadline - System.currentTimeMillis()));
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                    expireSessions();
+                } catch (Exception ex) {
+                    log.error("Unexpected error in ping event loop:", ex);
+                }
+            }
+        }
+
+        /**
+         * Open and register the channels of all pending pings.
+         */
+        private void registerPending() {
+            PingSession session;
+            while ((session = pending.poll()) != null) {
+                if (session.future.isCancelled()) { // Abandoned before it was started
+                    continue;
+                }
+                try {
+                    session.response = BufferPool.INSTANCE.acquire(0);
+                    SocketChannel channel = SocketChannel.open();
+                    session.channel = channel;
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    log.info("Opening TCP connection to {}...", session.address);
+                    if (connect(session)) { // Connected right away
+                        onConnected(session);
+                        session.key = channel.register(selector, SelectionKey.OP_WRITE, session);
+                    } else {
+                        session.key = channel.register(selector, SelectionKey.OP_CONNECT, session);
+                    }
+                    deadlines.add(session);
+                } catch (IOException ex) {
+                    session.fail(ex);
+                }
+            }
+        }
+
+        /**
+         * Close the channels of all abandoned pings.
+         */
+        private void closeAbandoned() {
+            PingSession session;
+            while ((session = abandoned.poll()) != null) {
+                session.fail(new CancellationException());
+            }
+        }
+
+        /**
+         * Handle a selected key.
+         *
+         * @param key the selected key
+         */
+        private void handle(@NonNull SelectionKey key) {
+            PingSession session = (PingSession) key.attachment();
+            try {
+                if (!key.isValid()) {
+                    return;
+                }
+                if (key.isConnectable()) {
+                    finishConnect(session);
+                    onConnected(session);
+                    key.interestOps(SelectionKey.OP_WRITE);
+                } else if (key.isWritable()) {
+                    session.channel.write(session.request);
+                    if (!session.request.hasRemaining()) { // Request sent, await the response
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                } else if (key.isReadable()) {
+                    if (!session.response.hasRemaining()) { // Grow the buffer until the frame length is known
+                        session.response = BufferPool.INSTANCE.grow(session.response, session.response.capacity() * 2);
+                    }
+                    if (session.channel.read(session.response) == -1) { // The stream was prematurely ended
+                        throw new IOException("Server prematurely ended stream.");
+                    }
+                    RawResponse response = session.decode();
+                    if (response != null) { // We have the full response
+                        key.cancel();
+                        session.close();
+                        if (!session.future.complete(response)) { // Abandoned while reading
+                            response.release();
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                session.fail(ex);
+            }
+        }
+
+        /**
+         * Start connecting the channel of the given ping.
+         *
+         * @param session the ping to connect
+         * @return whether the channel connected right away
+         * @throws ConnectException if the connection can't be made
+         */
+        private boolean connect(@NonNull PingSession session) throws ConnectException {
+            try {
+                return session.channel.connect(session.address);
+            } catch (IOException ex) {
+                throw toConnectException(ex);
+            }
+        }
+
+        /**
+         * Finish connecting the channel of the given ping.
+         *
+         * @param session the ping to connect
+         * @throws ConnectException if the connection couldn't be made
+         */
+        private void finishConnect(@NonNull PingSession session) throws ConnectException {
+            try {
+                session.channel.finishConnect();
+            } catch (IOException ex) {
+                throw toConnectException(ex);
+            }
+        }
+
+        /**
+         * Report a failure to connect as a {@link ConnectException},
+         * so failures like an unreachable network (which are thrown as
+         * a plain {@link java.net.SocketException}) are told apart from
+         * a server that was connected to, but answered badly.
+         *
+         * @param ex the failure
+         * @return the connect exception
+         */
+        @NonNull
+        private static ConnectException toConnectException(@NonNull IOException ex) {
+            if (ex instanceof ConnectException connectException) {
+                return connectException;
+            }
+            ConnectException connectException = new ConnectException(ex.getMessage());
+            connectException.initCause(ex);
+            return connectException;
+        }
+
+        /**
+         * Log the connection of the given ping.
+         *
+         * @param session the connected ping
+         */
+        private void onConnected(@NonNull PingSession session) {
+            long ping = System.currentTimeMillis() - session.started; // Calculate the ping
+            log.info("TCP Connection to {} opened. Ping: {}ms", session.address, ping);
+        }
+
+        /**
+         * Fail the pings that have passed their deadline.
+         */
+        private void expireSessions() {
+            long now = System.currentTimeMillis();
+            PingSession session;
+            while ((session = deadlines.peek()) != null && now >= session.deadline) {
+                deadlines.poll();
+                if (session.future.isDone()) { // Already completed, failed, or abandoned
+                    continue;
+                }
+                boolean connecting = session.key.isValid() && (session.key.interestOps() & SelectionKey.OP_CONNECT) != 0;
+                session.fail(new SocketTimeoutException(connecting ? "Connect timed out" : "Read timed out"));
+            }
+        }
+    }
+
+    /**
+     * The raw response received from a server.
+     * <p>
+     * The pooled buffer is released exactly once, either
+     * by whoever claims the response to parse it, or by
+     * {@link #release()} if the ping was abandoned.
+     * </p>
+     *
+     * @param buffer  the pooled buffer holding the response
+     * @param frame   the response frame, excluding its length prefix
+     * @param legacy  whether the response was a legacy kick
+     * @param claimed whether the buffer has been claimed
+     */
+    private record RawResponse(@NonNull ByteBuffer buffer, @NonNull ByteBuffer frame, boolean legacy, @NonNull AtomicBoolean claimed) {
+        private RawResponse(@NonNull ByteBuffer buffer, @NonNull ByteBuffer frame, boolean legacy) {
+            this(buffer, frame, legacy, new AtomicBoolean());
+        }
+
+        /**
+         * Claim the buffer of this response.
+         *
+         * @return whether the buffer was claimed, false if already claimed
+         */
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Release the buffer of this response, unless it's been claimed.
+         */
+        private void release() {
+            if (claim()) {
+                BufferPool.INSTANCE.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * This exception is raised when a modern ping
+     * is kicked by a server that only speaks the
+     * legacy protocol.
+     */
+    public static final class LegacyProtocolException extends IOException {
+        private LegacyProtocolException(@NonNull String kickMessage) {
+            super("Server kicked the modern handshake: " + kickMessage);
+        }
+    }
+}
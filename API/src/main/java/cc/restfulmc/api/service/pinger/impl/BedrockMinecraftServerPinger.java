@@ -1,72 +1,122 @@
 package cc.restfulmc.api.service.pinger.impl;
 
-import cc.restfulmc.api.common.packet.impl.bedrock.BedrockUnconnectedPingPacket;
-import cc.restfulmc.api.common.packet.impl.bedrock.BedrockUnconnectedPongPacket;
+import cc.restfulmc.api.common.concurrent.StaggeredRace;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.exception.impl.ResourceNotFoundException;
 import cc.restfulmc.api.model.dns.DNSRecord;
 import cc.restfulmc.api.model.server.bedrock.BedrockMinecraftServer;
+import cc.restfulmc.api.service.pinger.LatencyTracker;
 import cc.restfulmc.api.service.pinger.MinecraftServerPinger;
+import cc.restfulmc.api.service.pinger.engine.BedrockPingEngine;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
 
-import java.io.IOException;
-import java.net.DatagramSocket;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The {@link MinecraftServerPinger} for pinging
  * {@link BedrockMinecraftServer} over UDP.
+ * <p>
+ * The ping is driven by the shared {@link BedrockPingEngine},
+ * the calling thread simply awaits the pong.
+ * </p>
  *
  * @author Braydon
  */
 @Log4j2(topic = "Bedrock MC Server Pinger")
 public final class BedrockMinecraftServerPinger implements MinecraftServerPinger<BedrockMinecraftServer> {
-    private static final int TIMEOUT = 3000; // The timeout for the socket
+    /**
+     * The observed latencies of pings, used to derive ping timeouts.
+     */
+    private static final LatencyTracker LATENCIES = new LatencyTracker(500L, 4000L, 3000L);
+
+    private static final long CONNECTION_ATTEMPT_DELAY = 250L; // The delay before pinging the next address of a server
 
     /**
      * Ping the server with the given hostname and port.
      *
-     * @param hostname the hostname of the server
-     * @param ip       the ip of the server, null if unresolved
-     * @param port     the port of the server
-     * @param records  the DNS records of the server
+     * @param hostname  the hostname of the server
+     * @param ip        the ip of the server, null if unresolved
+     * @param port      the port of the server
+     * @param addresses the resolved addresses of the server, in the order to connect to them
+     * @param records   the DNS records of the server
+     * @param asn       the ASN of the server, null if unknown
      * @return the server that was pinged
      */
     @Override
-    public BedrockMinecraftServer ping(@NonNull String hostname, String ip, int port, @NonNull DNSRecord[] records) {
-        log.info("Opening UDP connection to {}:{}...", hostname, port);
-        long before = System.currentTimeMillis(); // Timestamp before pinging
-
-        // Open a socket connection to the server
-        try (DatagramSocket socket = new DatagramSocket()) {
-            socket.setSoTimeout(TIMEOUT);
-            socket.connect(new InetSocketAddress(hostname, port));
-
-            long ping = System.currentTimeMillis() - before; // Calculate the ping
-            log.info("UDP Connection to {}:{} opened. Ping: {}ms", hostname, port, ping);
-
-            // Send the unconnected ping packet
-            new BedrockUnconnectedPingPacket().process(socket);
-
-            // Handle the received unconnected pong packet
-            BedrockUnconnectedPongPacket unconnectedPong = new BedrockUnconnectedPongPacket();
-            unconnectedPong.process(socket);
-            String response = unconnectedPong.getResponse();
-            if (response == null) { // No pong response
-                throw new ResourceNotFoundException("Server didn't respond to ping");
+    public BedrockMinecraftServer ping(@NonNull String hostname, String ip, int port, @NonNull List<InetSocketAddress> addresses,
+                                       @NonNull DNSRecord[] records, Long asn) {
+        String endpoint = hostname + ":" + port;
+        int timeout = LATENCIES.getTimeout(endpoint, asn);
+        try {
+            StaggeredRace.Winner<InetSocketAddress, String> pong;
+            try {
+                pong = ping(endpoint, addresses, asn, timeout);
+            } catch (ExecutionException ex) {
+                int retryTimeout = LATENCIES.getRetryTimeout(timeout);
+                if (!LatencyTracker.isTimeout(ex.getCause()) || retryTimeout == -1) {
+                    throw ex;
+                }
+                // The server may have just slowed down, give it the default timeout before giving up on it
+                log.info("{} didn't answer within its learned timeout ({}ms), retrying with {}ms", endpoint, timeout, retryTimeout);
+                pong = ping(endpoint, addresses, asn, retryTimeout);
             }
-            return BedrockMinecraftServer.create(hostname, ip, port, records, response); // Return the server
-        } catch (IOException ex) {
-            if (ex instanceof UnknownHostException) {
+
+            // Return the server, with the IP of the address that answered
+            InetAddress connected = pong.candidate().getAddress();
+            return BedrockMinecraftServer.create(hostname, connected == null ? ip : connected.getHostAddress(), port, records, pong.value());
+        } catch (InterruptedException ex) { // The caller gave up on the ping
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UnknownHostException) {
                 throw new BadRequestException("Unknown hostname: %s".formatted(hostname));
-            } else if (ex instanceof SocketTimeoutException) {
-                throw new ResourceNotFoundException(ex);
+            } else if (ex.getCause() instanceof SocketTimeoutException || ex.getCause() instanceof SocketException) { // No answer, or unreachable
+                throw new ResourceNotFoundException(ex.getCause());
             }
-            log.error("An error occurred pinging {}:{}:", hostname, port, ex);
+            log.error("An error occurred pinging {}:{}:", hostname, port, ex.getCause());
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Ping every address of a server, staggered, and use
+     * the first pong, recording the latency of the ping.
+     *
+     * @param endpoint  the endpoint of the server
+     * @param addresses the resolved addresses of the server, in the order to ping them
+     * @param asn       the ASN of the server, null if unknown
+     * @param timeout   the timeout (in millis) for the ping
+     * @return the pong, along with the address that answered
+     * @throws ExecutionException if the ping failed
+     * @throws InterruptedException if the ping was abandoned
+     */
+    @NonNull
+    private static StaggeredRace.Winner<InetSocketAddress, String> ping(@NonNull String endpoint, @NonNull List<InetSocketAddress> addresses,
+                                                                        Long asn, int timeout) throws ExecutionException, InterruptedException {
+        log.info("Pinging {} (timeout {}ms)...", endpoint, timeout);
+        long before = System.currentTimeMillis();
+        CompletableFuture<StaggeredRace.Winner<InetSocketAddress, String>> future = StaggeredRace.raceForWinner(addresses, CONNECTION_ATTEMPT_DELAY,
+                address -> BedrockPingEngine.INSTANCE.ping(address, timeout)
+        );
+        try {
+            StaggeredRace.Winner<InetSocketAddress, String> pong = future.get();
+            LATENCIES.record(endpoint, asn, System.currentTimeMillis() - before);
+            return pong;
+        } catch (InterruptedException ex) { // Stop the engine sessions
+            future.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            if (LatencyTracker.isTimeout(ex.getCause())) {
+                LATENCIES.recordTimeout(endpoint, asn, timeout);
+            }
+            throw ex;
+        }
+    }
+}
@@ -1,32 +1,37 @@
 package cc.restfulmc.api.service.pinger.impl;
 
 import cc.restfulmc.api.common.Constants;
+import cc.restfulmc.api.common.ExpiringSet;
+import cc.restfulmc.api.common.ExpiringSet.ExpirationPolicy;
 import cc.restfulmc.api.common.JavaMinecraftVersion;
-import cc.restfulmc.api.common.packet.impl.java.tcp.JavaHandshakingInSetProtocolPacket;
-import cc.restfulmc.api.common.packet.impl.java.tcp.JavaLegacyServerListPingPacket;
-import cc.restfulmc.api.common.packet.impl.java.tcp.JavaStatusInStartPacket;
 import cc.restfulmc.api.common.packet.impl.java.udp.JavaQueryFullStatRequestPacket;
 import cc.restfulmc.api.common.packet.impl.java.udp.JavaQueryFullStatResponsePacket;
 import cc.restfulmc.api.common.packet.impl.java.udp.JavaQueryHandshakeRequestPacket;
 import cc.restfulmc.api.common.packet.impl.java.udp.JavaQueryHandshakeResponsePacket;
+import cc.restfulmc.api.common.concurrent.StaggeredRace;
 import cc.restfulmc.api.exception.impl.BadRequestException;
 import cc.restfulmc.api.exception.impl.ResourceNotFoundException;
 import cc.restfulmc.api.model.dns.DNSRecord;
 import cc.restfulmc.api.model.server.java.JavaMinecraftServer;
-import cc.restfulmc.api.model.server.java.Version;
 import cc.restfulmc.api.model.token.server.GenericJavaServerStatusToken;
 import cc.restfulmc.api.model.token.server.JavaServerChallengeStatusToken;
-import cc.restfulmc.api.model.token.server.JavaServerStatusToken;
 import cc.restfulmc.api.model.token.server.LegacyJavaServerStatusToken;
+import cc.restfulmc.api.service.pinger.LatencyTracker;
 import cc.restfulmc.api.service.pinger.MinecraftServerPinger;
+import cc.restfulmc.api.service.pinger.engine.JavaPingEngine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The {@link MinecraftServerPinger} for pinging
@@ -36,156 +41,504 @@ import java.net.*;
  */
 @Log4j2(topic = "Java MC Server Pinger")
 public final class JavaMinecraftServerPinger implements MinecraftServerPinger<JavaMinecraftServer> {
-    private static final int TIMEOUT = 3000; // The timeout for the socket
+    /**
+     * The observed latencies of status pings, used to derive
+     * both the connect and read timeouts of status pings, as
+     * a connect is always part of a status ping.
+     */
+    private static final LatencyTracker STATUS_LATENCIES = new LatencyTracker(500L, 4000L, 3000L);
+
+    /**
+     * The observed latencies of query handshakes,
+     * used to derive the timeouts of queries.
+     */
+    private static final LatencyTracker QUERY_LATENCIES = new LatencyTracker(150L, 1000L, 500L);
+
+    private static final long CONNECTION_ATTEMPT_DELAY = 250L; // The delay before connecting to the next address of a server
+    private static final long CHALLENGE_TOKEN_TTL = 25000L; // How long a challenge token is reused for, servers rotate them every 30 seconds
+    private static final int QUERY_FAILURES_TO_DISABLE = 3; // The amount of unanswered queries in a row before querying a server is skipped
+
+    /**
+     * Servers that have been seen speaking
+     * only the legacy (pre-1.7) protocol.
+     */
+    private final ExpiringSet<String> legacyServers = new ExpiringSet<>(ExpirationPolicy.CREATED, 1L, TimeUnit.HOURS);
+
+    /**
+     * Servers that repeatedly didn't answer a query
+     * handshake, and are assumed to have querying disabled.
+     */
+    private final ExpiringSet<String> queryDisabledServers = new ExpiringSet<>(ExpirationPolicy.CREATED, 10L, TimeUnit.MINUTES);
+
+    /**
+     * The amount of query handshakes in a row each
+     * server didn't answer, mapped by the server's endpoint.
+     */
+    private final Cache<String, AtomicInteger> queryFailures = CacheBuilder.newBuilder()
+            .expireAfterWrite(10L, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * The open query channels, mapped by the address they're connected to.
+     * <p>
+     * Servers bind the challenge tokens they hand out to the address
+     * and port they were handed out to, so a channel (and its source
+     * port) is kept open for a while, so the token can be reused.
+     * </p>
+     */
+    private final Cache<InetSocketAddress, QueryChannel> queryChannels = CacheBuilder.newBuilder()
+            .maximumSize(1024L)
+            .expireAfterAccess(1L, TimeUnit.MINUTES)
+            .removalListener((RemovalNotification<InetSocketAddress, QueryChannel> notification) -> {
+                if (notification.getValue() != null) {
+                    notification.getValue().close();
+                }
+            })
+            .build();
 
     /**
      * Ping the server with the given hostname and port.
      *
-     * @param hostname the hostname of the server
-     * @param ip       the ip of the server, null if unresolved
-     * @param port     the port of the server
-     * @param records  the DNS records of the server
+     * @param hostname  the hostname of the server
+     * @param ip        the ip of the server, null if unresolved
+     * @param port      the port of the server
+     * @param addresses the resolved addresses of the server, in the order to connect to them
+     * @param records   the DNS records of the server
+     * @param asn       the ASN of the server, null if unknown
      * @return the server that was pinged
      */
     @Override
-    public JavaMinecraftServer ping(@NonNull String hostname, String ip, int port, @NonNull DNSRecord[] records) {
+    public JavaMinecraftServer ping(@NonNull String hostname, String ip, int port, @NonNull List<InetSocketAddress> addresses,
+                                    @NonNull DNSRecord[] records, Long asn) {
         log.info("Pinging {}:{}...", hostname, port);
 
+        Future<JavaServerChallengeStatusToken> challengeFuture = null;
         try {
-            // Ping the server and retrieve both the status token, and the challenge status token
-            GenericJavaServerStatusToken statusToken;
-            JavaServerChallengeStatusToken challengeStatusToken = null;
-
-            // First try pinging the server natively
-            try {
-                statusToken = retrieveStatusToken(hostname, port);
-                try {
-                    challengeStatusToken = retrieveChallengeStatusToken(hostname, port);
-                } catch (Exception ex) {
-                    // An exception will be raised if querying
-                    // is disabled on the server. If the exception
-                    // is not caused by querying being disabled, we
-                    // want to log the error.
-                    if (!(ex instanceof IOException)) {
-                        log.error("Failed retrieving challenge status token for {}:{}:", hostname, port, ex);
+            // Ping the server and retrieve both the status token, and the challenge status token at the same time
+            if (!queryDisabledServers.contains(hostname + ":" + port)) { // Skip querying servers known to have it disabled
+                challengeFuture = Constants.VIRTUAL_EXECUTOR.submit(() -> {
+                    try {
+                        return retrieveChallengeStatusToken(hostname, port, addresses, asn);
+                    } catch (Exception ex) {
+                        // An exception will be raised if querying
+                        // is disabled on the server. If the exception
+                        // is not caused by querying being disabled, we
+                        // want to log the error.
+                        if (!(ex instanceof IOException)) {
+                            log.error("Failed retrieving challenge status token for {}:{}:", hostname, port, ex);
+                        }
+                        return null;
                     }
-                }
-            } catch (Exception ex) {
-                // Failed to ping, let's now try the legacy pinger
-                statusToken = retrieveLegacyStatusToken(hostname, port);
+                });
             }
-            // Return the server
-            return JavaMinecraftServer.create(hostname, ip, port, records, statusToken, challengeStatusToken);
+            StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken> status = retrieveStatusToken(hostname, port, addresses, asn);
+            JavaServerChallengeStatusToken challengeStatusToken = challengeFuture == null ? null : awaitChallenge(challengeFuture);
+
+            // Return the server, with the IP of the address that answered
+            InetAddress connected = status.candidate().getAddress();
+            return JavaMinecraftServer.create(hostname, connected == null ? ip : connected.getHostAddress(), port, records,
+                    status.value(), challengeStatusToken
+            );
         } catch (IOException ex) {
             if (ex instanceof UnknownHostException) {
                 throw new BadRequestException("Unknown hostname: %s".formatted(hostname));
             } else if (ex instanceof ConnectException || ex instanceof SocketTimeoutException) {
                 throw new ResourceNotFoundException(ex);
+            } else if (ex instanceof InterruptedIOException) { // The caller gave up on the ping
+                return null;
             }
             log.error("An error occurred pinging {}:{}:", hostname, port, ex);
+        } finally {
+            if (challengeFuture != null) { // Don't leave the query running if the ping failed
+                challengeFuture.cancel(true);
+            }
         }
         return null;
     }
 
     /**
      * Ping a server and retrieve its response.
+     * <p>
+     * The ping is driven by the non-blocking {@link JavaPingEngine},
+     * the calling thread simply awaits the response. A legacy server
+     * answering the modern handshake with a legacy kick is detected
+     * on that first connection by the engine. Only if the server
+     * answers the modern handshake with something that can't be parsed
+     * (e.g. it drops the connection) is a second, legacy connection made.
+     * Servers seen speaking the legacy protocol are remembered, and are
+     * pinged with both protocols in parallel, preferring the legacy
+     * answer, so they cost a single round-trip (even once upgraded). If
+     * the server has several addresses, they're raced with staggered
+     * starts, and the first one to respond is used.
+     * </p>
+     * <p>
+     * If the server times out within a timeout learned to be
+     * shorter than the default, it's pinged once more with the
+     * default timeout, as it may have just slowed down.
+     * </p>
      *
      * @param hostname the hostname to ping
      * @param port the port to ping
-     * @return the status token
+     * @param addresses the addresses of the server, in the order to connect to them
+     * @param asn the ASN of the server, null if unknown
+     * @return the status token, along with the address that answered
      * @throws IOException if an I/O error occurs
      * @throws ResourceNotFoundException if the server didn't respond
      */
     @NonNull
-    private JavaServerStatusToken retrieveStatusToken(@NonNull String hostname, int port) throws IOException {
-        // Open a socket connection to the server
-        try (
-                Socket socket = createTcpSocket(hostname, port);
-                DataInputStream inputStream = new DataInputStream(socket.getInputStream());
-                DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream())) {
-            // Begin handshaking with the server
-            new JavaHandshakingInSetProtocolPacket(hostname, port, JavaMinecraftVersion.getLatestVersion().getProtocol())
-                    .process(inputStream, outputStream);
+    private StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken> retrieveStatusToken(@NonNull String hostname, int port, @NonNull List<InetSocketAddress> addresses,
+                                                             Long asn) throws IOException {
+        String serverKey = hostname + ":" + port;
+        int timeout = STATUS_LATENCIES.getTimeout(serverKey, asn);
+        try {
+            return retrieveStatusToken(hostname, port, addresses, asn, timeout);
+        } catch (IOException ex) {
+            int retryTimeout = STATUS_LATENCIES.getRetryTimeout(timeout);
+            if (!LatencyTracker.isTimeout(ex) || retryTimeout == -1 || Thread.currentThread().isInterrupted()) {
+                throw ex;
+            }
+            log.info("{} didn't answer within its learned timeout ({}ms), retrying with {}ms", serverKey, timeout, retryTimeout);
+            return retrieveStatusToken(hostname, port, addresses, asn, retryTimeout);
+        }
+    }
 
-            // Send the status request to the server, and await back the response
-            JavaStatusInStartPacket packetStatusInStart = new JavaStatusInStartPacket();
-            packetStatusInStart.process(inputStream, outputStream);
-            return Constants.GSON.fromJson(packetStatusInStart.getResponse(), JavaServerStatusToken.class);
+    /**
+     * Ping a server with the given timeout and retrieve its
+     * response, recording the latency (or timeout) of the ping.
+     *
+     * @param hostname the hostname to ping
+     * @param port the port to ping
+     * @param addresses the addresses of the server, in the order to connect to them
+     * @param asn the ASN of the server, null if unknown
+     * @param timeout the timeout (in millis) for the ping
+     * @return the status token, along with the address that answered
+     * @throws IOException if an I/O error occurs
+     * @see #retrieveStatusToken(String, int, List, Long) for more
+     */
+    @NonNull
+    private StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken> retrieveStatusToken(@NonNull String hostname, int port, @NonNull List<InetSocketAddress> addresses,
+                                                             Long asn, int timeout) throws IOException {
+        String serverKey = hostname + ":" + port;
+        long before = System.currentTimeMillis();
+        int protocol = JavaMinecraftVersion.getLatestVersion().getProtocol();
+        boolean knownLegacy = legacyServers.contains(serverKey);
+        CompletableFuture<StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken>> legacyFuture = knownLegacy
+                ? pingLegacy(addresses, timeout) : null;
+        CompletableFuture<StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken>> modernFuture = StaggeredRace.raceForWinner(
+                addresses, CONNECTION_ATTEMPT_DELAY, address -> JavaPingEngine.INSTANCE.ping(address, hostname, port, protocol, timeout)
+        );
+        StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken> status;
+        try {
+            if (legacyFuture != null) { // Known legacy server, prefer the legacy answer, falling back to the modern one if it upgraded
+                try {
+                    status = await(legacyFuture);
+                } catch (IOException ex) {
+                    if (Thread.currentThread().isInterrupted()) { // The ping was abandoned
+                        throw ex;
+                    }
+                    status = await(modernFuture);
+                }
+            } else {
+                try {
+                    status = await(modernFuture);
+                } catch (IOException ex) {
+                    if (!isProtocolFailure(ex)) {
+                        // The server wasn't reachable, didn't answer in time, or the ping was abandoned, the legacy protocol won't help
+                        throw ex;
+                    }
+                    // The server answered, but not with anything we could parse, let's now use the legacy ping
+                    log.info("{} didn't respond to the modern handshake ({}), using the legacy ping", serverKey, ex.getMessage());
+                    status = await(legacyFuture = pingLegacy(addresses, timeout));
+                }
+            }
+            STATUS_LATENCIES.record(serverKey, asn, System.currentTimeMillis() - before);
+        } catch (IOException ex) {
+            if (LatencyTracker.isTimeout(ex) && !Thread.currentThread().isInterrupted()) {
+                STATUS_LATENCIES.recordTimeout(serverKey, asn, timeout);
+            }
+            throw ex;
+        } finally { // No-op for the future that was used
+            modernFuture.cancel(true);
+            if (legacyFuture != null) {
+                legacyFuture.cancel(true);
+            }
+        }
+        if (status.value() instanceof LegacyJavaServerStatusToken) {
+            legacyServers.add(serverKey);
+        } else if (knownLegacy) { // The server has upgraded
+            legacyServers.remove(serverKey);
+        }
+        return status;
+    }
+
+    /**
+     * Check if the given failure of a ping means that an
+     * address of the server was reached, but answered with
+     * something other than a status response, rather than
+     * no address answering at all (or the ping being abandoned).
+     *
+     * @param ex the failure, with the failures of the other addresses suppressed
+     * @return whether the server answered at the protocol level
+     */
+    private static boolean isProtocolFailure(@NonNull IOException ex) {
+        if (isProtocolFailureCause(ex)) {
+            return true;
         }
+        for (Throwable suppressed : ex.getSuppressed()) {
+            if (isProtocolFailureCause(suppressed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the given failure of a single
+     * attempt happened at the protocol level.
+     *
+     * @param ex the failure
+     * @return whether the failure happened at the protocol level
+     */
+    private static boolean isProtocolFailureCause(@NonNull Throwable ex) {
+        return ex instanceof IOException && !(ex instanceof UnknownHostException || ex instanceof ConnectException
+                || ex instanceof InterruptedIOException);
     }
 
     /**
      * Ping a server and retrieve its challenge status token.
+     * <p>
+     * The addresses are tried in order, moving on to the next
+     * address if one can't be sent to at all (e.g. an IPv6
+     * address, on a host without IPv6 connectivity).
+     * </p>
      *
      * @param hostname the hostname to ping
      * @param port the port to ping
+     * @param addresses the addresses of the server, in the order to connect to them
+     * @param asn the ASN of the server, null if unknown
      * @return the challenge token
      * @throws IOException if an I/O error occurs
      */
     @NonNull
-    private JavaServerChallengeStatusToken retrieveChallengeStatusToken(@NonNull String hostname, int port) throws IOException {
-        log.info("Opening UDP connection to {}:{}...", hostname, port);
-        long before = System.currentTimeMillis(); // Timestamp before pinging
-
-        // Open a socket connection to the server
-        try (DatagramSocket socket = new DatagramSocket()) {
-            socket.setSoTimeout(500);
-            socket.connect(new InetSocketAddress(hostname, port));
-
-            long ping = System.currentTimeMillis() - before; // Calculate the ping
-            log.info("UDP Connection to {}:{} opened. Ping: {}ms", hostname, port, ping);
+    private JavaServerChallengeStatusToken retrieveChallengeStatusToken(@NonNull String hostname, int port, @NonNull List<InetSocketAddress> addresses,
+                                                                        Long asn) throws IOException {
+        SocketException lastFailure = null;
+        for (InetSocketAddress address : addresses) {
+            if (address.isUnresolved()) { // We can't query an unresolved address
+                continue;
+            }
+            try {
+                return query(hostname, port, address, asn);
+            } catch (SocketException ex) {
+                if (ex instanceof PortUnreachableException || Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+                lastFailure = ex; // The address couldn't be sent to, try the next one
+            }
+        }
+        throw lastFailure != null ? lastFailure : new UnknownHostException(hostname);
+    }
 
+    /**
+     * Query a server at the given address.
+     * <p>
+     * Queries to the same address share a long-lived channel, so
+     * if the server handed out a challenge token on it recently,
+     * it's reused and the handshake is skipped. A channel is thrown
+     * away on any error, so a late reply is never mistaken for the
+     * answer to the next request. If the server doesn't answer the
+     * handshake several times in a row (or the port is unreachable),
+     * it's remembered as having querying disabled, and won't be
+     * queried for a while.
+     * </p>
+     *
+     * @param hostname the hostname to ping
+     * @param port the port to ping
+     * @param address the address of the server
+     * @param asn the ASN of the server, null if unknown
+     * @return the challenge token
+     * @throws IOException if an I/O error occurs
+     */
+    @NonNull
+    private JavaServerChallengeStatusToken query(@NonNull String hostname, int port, @NonNull InetSocketAddress address, Long asn) throws IOException {
+        String serverKey = hostname + ":" + port;
+        QueryChannel channel;
+        try {
+            channel = queryChannels.get(address, () -> {
+                log.info("Opening UDP connection to {}:{}...", hostname, port);
+                return new QueryChannel(address);
+            });
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException ioException ? ioException : new IOException(ex.getCause());
+        }
+        try {
+            channel.lock.lockInterruptibly();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Query was abandoned");
+        }
+        try {
+            DatagramSocket socket = channel.socket;
+            int timeout = QUERY_LATENCIES.getTimeout(serverKey, asn);
+            socket.setSoTimeout(timeout);
+            byte[] challengeToken = channel.challengeToken;
+            if (challengeToken != null && System.currentTimeMillis() - channel.challengeTokenTime < CHALLENGE_TOKEN_TTL) {
+                return requestFullStat(socket, challengeToken); // Reuse the last challenge token
+            }
             // Begin handshaking with the server
-            new JavaQueryHandshakeRequestPacket().process(socket);
-            JavaQueryHandshakeResponsePacket handshakeResponse = new JavaQueryHandshakeResponsePacket();
-            handshakeResponse.process(socket);
+            try {
+                long handshakeStart = System.currentTimeMillis();
+                new JavaQueryHandshakeRequestPacket().process(socket);
+                JavaQueryHandshakeResponsePacket handshakeResponse = new JavaQueryHandshakeResponsePacket();
+                handshakeResponse.process(socket);
+                challengeToken = handshakeResponse.getResponse();
+                QUERY_LATENCIES.record(serverKey, asn, System.currentTimeMillis() - handshakeStart);
+                queryFailures.invalidate(serverKey);
+            } catch (SocketTimeoutException | PortUnreachableException ex) {
+                if (ex instanceof SocketTimeoutException) {
+                    QUERY_LATENCIES.recordTimeout(serverKey, asn, timeout);
+                }
+                int failures = ex instanceof PortUnreachableException ? QUERY_FAILURES_TO_DISABLE // Nothing is listening
+                        : queryFailures.asMap().computeIfAbsent(serverKey, key -> new AtomicInteger()).incrementAndGet();
+                if (failures >= QUERY_FAILURES_TO_DISABLE) {
+                    queryDisabledServers.add(serverKey);
+                    queryFailures.invalidate(serverKey);
+                }
+                throw ex;
+            }
+            channel.challengeToken = challengeToken;
+            channel.challengeTokenTime = System.currentTimeMillis();
+            return requestFullStat(socket, challengeToken);
+        } catch (IOException ex) {
+            queryChannels.invalidate(address); // Don't reuse a channel that may still get a late reply
+            throw ex;
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    /**
+     * Request the full stats from a server
+     * using the given challenge token.
+     *
+     * @param socket         the socket connected to the server
+     * @param challengeToken the challenge token from the handshake
+     * @return the challenge token
+     * @throws IOException if an I/O error occurs
+     */
+    @NonNull
+    private static JavaServerChallengeStatusToken requestFullStat(@NonNull DatagramSocket socket, byte[] challengeToken) throws IOException {
+        // Send the full stats request to the server, and await back the response
+        new JavaQueryFullStatRequestPacket(challengeToken).process(socket);
+        JavaQueryFullStatResponsePacket fullStatResponse = new JavaQueryFullStatResponsePacket();
+        fullStatResponse.process(socket);
 
-            // Send the full stats request to the server, and await back the response
-            new JavaQueryFullStatRequestPacket(handshakeResponse.getResponse()).process(socket);
-            JavaQueryFullStatResponsePacket fullStatResponse = new JavaQueryFullStatResponsePacket();
-            fullStatResponse.process(socket);
+        // Return the challenge token
+        return JavaServerChallengeStatusToken.create(fullStatResponse.getResponse());
+    }
 
-            // Return the challenge token
-            return JavaServerChallengeStatusToken.create(fullStatResponse.getResponse());
-        }
+    /**
+     * Ping the given addresses of a server using the legacy
+     * protocol, staggered, and use the first response.
+     *
+     * @param addresses the addresses of the server, in the order to connect to them
+     * @param timeout   the timeout (in millis) for each ping
+     * @return the future status token, along with the address that answered
+     */
+    @NonNull
+    private static CompletableFuture<StaggeredRace.Winner<InetSocketAddress, GenericJavaServerStatusToken>> pingLegacy(@NonNull List<InetSocketAddress> addresses,
+                                                                                                                  int timeout) {
+        return StaggeredRace.raceForWinner(addresses, CONNECTION_ATTEMPT_DELAY, address -> JavaPingEngine.INSTANCE.pingLegacy(address, timeout));
     }
 
+    /**
+     * Await the result of a ping from the {@link JavaPingEngine}.
+     * <p>
+     * If the awaiting thread is interrupted, the ping
+     * is cancelled, which closes its engine sessions.
+     * </p>
+     *
+     * @param future the future of the ping
+     * @return the result of the ping
+     * @param <T> the type of result
+     * @throws IOException if an I/O error occurs
+     */
     @NonNull
-    private LegacyJavaServerStatusToken retrieveLegacyStatusToken(@NonNull String hostname, int port) throws IOException {
-        // Open a socket connection to the server
-        try (
-                Socket socket = createTcpSocket(hostname, port);
-                DataInputStream inputStream = new DataInputStream(socket.getInputStream());
-                DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream())) {
-            JavaLegacyServerListPingPacket legacyPingPacket = new JavaLegacyServerListPingPacket();
-            legacyPingPacket.process(inputStream, outputStream);
-
-            GenericJavaServerStatusToken.Players players = new GenericJavaServerStatusToken.Players(
-                    legacyPingPacket.getOnlinePlayers(), legacyPingPacket.getMaxPlayers(), new GenericJavaServerStatusToken.Players.Sample[0]
-            );
-            Version version = new Version(legacyPingPacket.getGameVersion(), null, legacyPingPacket.getProtocolVersion(),
-                    new int[] { legacyPingPacket.getProtocolVersion() }, null);
-            return new LegacyJavaServerStatusToken(legacyPingPacket.getMotd(), players, version);
+    private static <T> T await(@NonNull CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ping was abandoned");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException ioException) { // Rethrow the cause so it's handled like a blocking ping
+                throw ioException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(cause);
         }
     }
 
     /**
-     * Create a new TCP socket connecting to the given hostname and port.
+     * Await the challenge status token of a query.
      *
-     * @param hostname the hostname to connect to
-     * @param port the port to connect to
-     * @return the created socket
-     */
-    @NonNull @SneakyThrows
-    private Socket createTcpSocket(@NonNull String hostname, int port) {
-        log.info("Opening TCP connection to {}:{}...", hostname, port);
-        long before = System.currentTimeMillis(); // Timestamp before pinging
-        Socket socket = new Socket();
-        socket.setTcpNoDelay(true);
-        socket.connect(new InetSocketAddress(hostname, port), TIMEOUT);
-
-        long ping = System.currentTimeMillis() - before; // Calculate the ping
-        log.info("TCP Connection to {}:{} opened. Ping: {}ms", hostname, port, ping);
-        return socket;
+     * @param future the future of the query
+     * @return the challenge status token, null if the query failed
+     * @throws InterruptedIOException if the awaiting thread is interrupted
+     */
+    private static JavaServerChallengeStatusToken awaitChallenge(@NonNull Future<JavaServerChallengeStatusToken> future) throws InterruptedIOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Query was abandoned");
+        } catch (ExecutionException | CancellationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * A long-lived UDP channel for querying a server.
+     */
+    private static final class QueryChannel {
+        /**
+         * The lock held while querying over this channel.
+         */
+        @NonNull private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The socket connected to the server.
+         */
+        @NonNull private final DatagramSocket socket;
+
+        /**
+         * The last challenge token handed out on this channel, null if none.
+         */
+        private byte[] challengeToken;
+
+        /**
+         * The unix timestamp the challenge token was handed out at.
+         */
+        private long challengeTokenTime;
+
+        private QueryChannel(@NonNull InetSocketAddress address) throws SocketException {
+            socket = new DatagramSocket();
+            socket.connect(address);
+        }
+
+        /**
+         * Close this channel, waiting for any query in progress.
+         */
+        private void close() {
+            lock.lock();
+            try {
+                socket.close();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
-}
\ No newline at end of file
+}
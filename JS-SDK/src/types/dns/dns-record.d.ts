@@ -10,6 +10,16 @@ export interface ARecord extends DNSRecord {
     address?: string | undefined;
 }
 
+/**
+ * An AAAA record.
+ */
+export interface AAAARecord extends DNSRecord {
+    /**
+     * The address of this record, undefined if unresolved.
+     */
+    address?: string | undefined;
+}
+
 /**
  * An SRV record.
  */
@@ -3,5 +3,6 @@
  */
 export enum RecordType {
     A = "A",
+    AAAA = "AAAA",
     SRV = "SRV",
 }